@@ -0,0 +1,92 @@
+package academy.devdojo.springwebfluxessentials.benchmark;
+
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Encoding and decoding 10k animes in every format of the API, the size of the payload is the "bytes" counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnimeCodecBenchmark {
+
+    private static final TypeReference<List<Anime>> ANIME_LIST = new TypeReference<List<Anime>>() {
+    };
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    private ObjectMapper objectMapper;
+
+    private List<Anime> animes;
+
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .factory(factory(format))
+                .modulesToInstall(new ParameterNamesModule())
+                .build();
+        animes = IntStream.rangeClosed(1, 10_000)
+                .mapToObj(id -> Anime.builder().id(id).name("Anime " + id).version(id % 5).build())
+                .collect(Collectors.toList());
+        encoded = objectMapper.writeValueAsBytes(animes);
+    }
+
+    @Benchmark
+    public byte[] encodeTenThousandAnimes(final Payload payload) throws Exception {
+        final byte[] bytes = objectMapper.writeValueAsBytes(animes);
+        payload.bytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public List<Anime> decodeTenThousandAnimes(final Payload payload) throws Exception {
+        payload.bytes = encoded.length;
+        return objectMapper.readValue(encoded, ANIME_LIST);
+    }
+
+    private static JsonFactory factory(final String format) {
+        switch (format) {
+            case "smile":
+                return new SmileFactory();
+            case "cbor":
+                return new CBORFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+
+    /**
+     * Reported next to the time, the size of the 10k animes in the format
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Payload {
+
+        public long bytes;
+    }
+}
@@ -0,0 +1,62 @@
+package academy.devdojo.springwebfluxessentials.benchmark;
+
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Jackson serialization of the anime payloads, with the modules Spring Boot registers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AnimeJsonBenchmark {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new ParameterNamesModule())
+            .build();
+
+    private final Anime anime = Anime.builder().id(1).name("Full Metal").build();
+
+    private final List<Anime> animes = IntStream.rangeClosed(1, 100)
+            .mapToObj(id -> Anime.builder().id(id).name("Anime " + id).build())
+            .collect(Collectors.toList());
+
+    private final byte[] animeJson;
+
+    public AnimeJsonBenchmark() {
+        try {
+            animeJson = objectMapper.writeValueAsBytes(anime);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeAnime() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(anime);
+    }
+
+    @Benchmark
+    public byte[] serializeHundredAnimes() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(animes);
+    }
+
+    @Benchmark
+    public Anime deserializeAnime() throws Exception {
+        return objectMapper.readValue(animeJson, Anime.class);
+    }
+}
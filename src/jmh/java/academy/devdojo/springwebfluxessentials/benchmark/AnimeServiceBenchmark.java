@@ -0,0 +1,62 @@
+package academy.devdojo.springwebfluxessentials.benchmark;
+
+import academy.devdojo.springwebfluxessentials.dto.AnimePage;
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import academy.devdojo.springwebfluxessentials.repository.AnimeRepository;
+import academy.devdojo.springwebfluxessentials.service.AnimeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read and write paths of AnimeService against the in memory H2 database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AnimeServiceBenchmark {
+
+    private AnimeService animeService;
+
+    private AnimeRepository animeRepository;
+
+    @Setup
+    public void setup(final ApplicationState application) {
+        animeService = application.getBean(AnimeService.class);
+        animeRepository = application.getBean(AnimeRepository.class);
+    }
+
+    @Benchmark
+    public Anime findByIdCached() {
+        return animeService.findById(1).block();
+    }
+
+    @Benchmark
+    public Anime findByIdFromDatabase() {
+        return animeRepository.findById(1).block();
+    }
+
+    @Benchmark
+    public AnimePage findPage() {
+        return animeService.findPage(0, 50).block();
+    }
+
+    @Benchmark
+    public List<Anime> findAll() {
+        return animeService.findAll().collectList().block();
+    }
+
+    @Benchmark
+    public Anime saveAndDelete() {
+        final Anime anime = animeService.save(Anime.builder().name("Benchmark").build()).block();
+        animeService.delete(anime.getId()).block();
+        return anime;
+    }
+}
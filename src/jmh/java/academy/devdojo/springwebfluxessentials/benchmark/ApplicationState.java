@@ -0,0 +1,57 @@
+package academy.devdojo.springwebfluxessentials.benchmark;
+
+import academy.devdojo.springwebfluxessentials.SpringWebfluxEssentialsApplication;
+import academy.devdojo.springwebfluxessentials.configuration.InitDatabase;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+
+/**
+ * The whole application running on a random port with the in memory H2 database seeded by InitDatabase.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+    /**
+     * The annotated AnimeController (false) or the functional AnimeRouter and AnimeHandler (true),
+     * on the same AnimeService
+     */
+    @Param({"false", "true"})
+    public boolean functional;
+
+    ConfigurableApplicationContext context;
+
+    WebTestClient adminClient;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = SpringApplication.run(SpringWebfluxEssentialsApplication.class,
+                "--server.port=0", "--anime.web.functional=" + functional,
+                "--logging.level.root=WARN", "--logging.level.org.springframework.data.r2dbc=WARN");
+        // the seeding runs in the background, the users are needed before the first request
+        context.getBean(InitDatabase.class).seeded().block(Duration.ofMinutes(1));
+
+        adminClient = WebTestClient.bindToServer()
+                .baseUrl("http://localhost:" + context.getEnvironment().getProperty("local.server.port"))
+                .defaultHeaders(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .responseTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    <T> T getBean(final Class<T> type) {
+        return context.getBean(type);
+    }
+}
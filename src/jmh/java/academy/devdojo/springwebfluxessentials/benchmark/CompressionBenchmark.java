@@ -0,0 +1,115 @@
+package academy.devdojo.springwebfluxessentials.benchmark;
+
+import academy.devdojo.springwebfluxessentials.SpringWebfluxEssentialsApplication;
+import academy.devdojo.springwebfluxessentials.configuration.InitDatabase;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /animes on a catalogue of 1M animes, with and without gzip. The time is the whole download, the size on the
+ * wire is the "bytes" counter (the client does not decompress).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class CompressionBenchmark {
+
+    private static final int ANIMES = 1_000_000;
+
+    @Param({"application/json", "application/x-ndjson"})
+    public String accept;
+
+    @Param({"identity", "gzip"})
+    public String encoding;
+
+    private ConfigurableApplicationContext context;
+
+    private WebClient client;
+
+    private Path seedFile;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        seedFile = Files.createTempFile("animes", ".ndjson");
+        try (BufferedWriter writer = Files.newBufferedWriter(seedFile)) {
+            for (int id = 1; id <= ANIMES; id++) {
+                writer.write("{\"name\":\"Anime number " + id + "\"}\n");
+            }
+        }
+
+        context = SpringApplication.run(SpringWebfluxEssentialsApplication.class,
+                "--server.port=0", "--anime.seed.file=" + seedFile.toUri(),
+                "--logging.level.root=WARN", "--logging.level.org.springframework.data.r2dbc=WARN");
+        context.getBean(InitDatabase.class).seeded().block(Duration.ofMinutes(10));
+
+        client = WebClient.builder()
+                .baseUrl("http://localhost:" + context.getEnvironment().getProperty("local.server.port"))
+                .defaultHeaders(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        context.close();
+        Files.deleteIfExists(seedFile);
+    }
+
+    @Benchmark
+    public long listAll(final Download download) {
+        download.bytes = download();
+        return download.bytes;
+    }
+
+    /**
+     * @return the bytes received, compressed or not
+     */
+    private long download() {
+        return client.get()
+                .uri("/animes")
+                .header(HttpHeaders.ACCEPT, accept)
+                .header(HttpHeaders.ACCEPT_ENCODING, encoding)
+                .exchangeToMono(response -> response.bodyToFlux(DataBuffer.class)
+                        .map(buffer -> {
+                            final long size = buffer.readableByteCount();
+                            DataBufferUtils.release(buffer);
+                            return size;
+                        })
+                        .reduce(0L, Long::sum))
+                .block(Duration.ofMinutes(5));
+    }
+
+    /**
+     * Reported next to the time, the size of the response on the wire
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Download {
+
+        public long bytes;
+    }
+}
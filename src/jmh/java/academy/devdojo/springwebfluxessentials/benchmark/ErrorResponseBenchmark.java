@@ -0,0 +1,68 @@
+package academy.devdojo.springwebfluxessentials.benchmark;
+
+import academy.devdojo.springwebfluxessentials.exception.CustomAttributes;
+import academy.devdojo.springwebfluxessentials.exception.ErrorBodies;
+import academy.devdojo.springwebfluxessentials.exception.StacklessResponseStatusException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.boot.web.error.ErrorAttributeOptions;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What GlobalExceptionHandler.formatErrorResponse does for a 404. With "trace=true" it builds the exception,
+ * the error attributes map with CustomAttributes and serializes it with Jackson, otherwise it builds an exception
+ * without stack and writes the body from ErrorBodies. notFound is the way every 404 was answered before.
+ * Compare gc.alloc.rate.norm to see the bytes allocated per 404.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ErrorResponseBenchmark {
+
+    private final CustomAttributes customAttributes = new CustomAttributes();
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final ServerCodecConfigurer serverCodecConfigurer = ServerCodecConfigurer.create();
+
+    private final ErrorBodies errorBodies = new ErrorBodies(objectMapper);
+
+    @Benchmark
+    public byte[] notFound() throws JsonProcessingException {
+        return formatErrorResponse(new ResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found"), ErrorAttributeOptions.defaults());
+    }
+
+    @Benchmark
+    public byte[] notFoundWithTrace() throws JsonProcessingException {
+        return formatErrorResponse(new StacklessResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found"),
+                ErrorAttributeOptions.of(ErrorAttributeOptions.Include.STACK_TRACE));
+    }
+
+    @Benchmark
+    public byte[] notFoundPrebuilt() {
+        final MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/animes/99999"));
+        return errorBodies.render(new StacklessResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found"),
+                exchange.getRequest().getPath().value(), exchange.getRequest().getId());
+    }
+
+    private byte[] formatErrorResponse(final ResponseStatusException exception, final ErrorAttributeOptions options) throws JsonProcessingException {
+        final MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/animes/99999"));
+        customAttributes.storeErrorInformation(exception, exchange);
+        final ServerRequest request = ServerRequest.create(exchange, serverCodecConfigurer.getReaders());
+        return objectMapper.writeValueAsBytes(customAttributes.getErrorAttributes(request, options));
+    }
+}
@@ -0,0 +1,50 @@
+package academy.devdojo.springwebfluxessentials.benchmark;
+
+import academy.devdojo.springwebfluxessentials.entity.Authorities;
+import academy.devdojo.springwebfluxessentials.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * getAuthorities is called several times per request by the role checks,
+ * splitPerCall is how it was done before the authorities were parsed once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserAuthoritiesBenchmark {
+
+    private static final GrantedAuthority ROLE_ADMIN = new SimpleGrantedAuthority("ROLE_ADMIN");
+
+    private final String authoritiesColumn = "ROLE_ADMIN,ROLE_USER";
+
+    private final User user = User.builder().username("cavalo").authorities(Authorities.parse(authoritiesColumn)).build();
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return user.getAuthorities();
+    }
+
+    @Benchmark
+    public boolean hasRoleAdmin() {
+        return user.getAuthorities().contains(ROLE_ADMIN);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> splitPerCall() {
+        return Arrays.stream(authoritiesColumn.split(","))
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,55 @@
+package academy.devdojo.springwebfluxessentials.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full HTTP round trips through Netty, Spring Security, the controller, the service and H2.
+ * Runs with the annotated controller and with the functional endpoints, see ApplicationState.functional.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class WebStackBenchmark {
+
+    @Benchmark
+    public byte[] findById(final ApplicationState application) {
+        return application.adminClient.get()
+                .uri("/animes/1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .returnResult()
+                .getResponseBody();
+    }
+
+    @Benchmark
+    public byte[] listPage(final ApplicationState application) {
+        return application.adminClient.get()
+                .uri("/animes?after=0&limit=50")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .returnResult()
+                .getResponseBody();
+    }
+
+    @Benchmark
+    public byte[] notFound(final ApplicationState application) {
+        return application.adminClient.get()
+                .uri("/animes/99999")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .returnResult()
+                .getResponseBody();
+    }
+}
@@ -2,12 +2,21 @@ package academy.devdojo.springwebfluxessentials;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import reactor.blockhound.BlockHound;
+import reactor.core.scheduler.Schedulers;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class SpringWebfluxEssentialsApplication {
 
+	// before any scheduler is created, the ones created earlier are not measured;
+	// here and not in main so the tests starting the application get the metrics too
+	static {
+		Schedulers.enableMetrics();
+	}
+
 //	static {
 //		BlockHound.install(builder -> builder.allowBlockingCallsInside("java.util.UUID", "randomUUID"));
 //	}
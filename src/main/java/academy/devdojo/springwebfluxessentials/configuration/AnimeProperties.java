@@ -0,0 +1,191 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "anime")
+public class AnimeProperties {
+
+    private final Page page = new Page();
+
+    private final Stream stream = new Stream();
+
+    private final Cache cache = new Cache();
+
+    private final Batch batch = new Batch();
+
+    private final Insert insert = new Insert();
+
+    private final Security security = new Security();
+
+    private final Pool pool = new Pool();
+
+    private final Search search = new Search();
+
+    private final Changes changes = new Changes();
+
+    private final Seed seed = new Seed();
+
+    private final Web web = new Web();
+
+    @Data
+    public static class Page {
+
+        /**
+         * Biggest page a client can ask for with GET /animes?after=&limit=
+         */
+        private int maxLimit = 500;
+    }
+
+    @Data
+    public static class Stream {
+
+        /**
+         * Number of rows requested from the database at a time when streaming the whole catalogue,
+         * a slow client will not make the server fetch more than that ahead of it
+         */
+        private int chunkSize = 256;
+    }
+
+    @Data
+    public static class Cache {
+
+        /**
+         * Max number of animes kept in memory by findById, the least valuable ones are evicted first
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * How long an anime stays cached after being read from the database
+         */
+        private Duration timeToLive = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Batch {
+
+        /**
+         * Max number of ids sent in a single "WHERE ID IN (...)" query by findById
+         */
+        private int maxSize = 100;
+
+        /**
+         * Max number of batched queries running at the same time,
+         * the ids asked to findById while all of them are running are sent together in the next one
+         */
+        private int concurrency = 4;
+    }
+
+    @Data
+    public static class Insert {
+
+        /**
+         * Number of animes sent to the database in a single batched INSERT by saveAll,
+         * and in a single UPDATE/DELETE ... WHERE ID IN (...) by the batch updates and deletes
+         */
+        private int chunkSize = 1000;
+    }
+
+    @Data
+    public static class Security {
+
+        /**
+         * Max number of users and of verified credentials kept in memory
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * How long a user read by username stays cached
+         */
+        private Duration userTimeToLive = Duration.ofMinutes(5);
+
+        /**
+         * How long a successful username/password check is remembered, so the password is not checked again
+         */
+        private Duration verificationTimeToLive = Duration.ofMinutes(1);
+
+        /**
+         * Number of threads checking passwords, bcrypt is CPU bound so there is no gain going over the number of cores
+         */
+        private int schedulerThreads = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Number of password checks allowed to wait for a thread, above that the request is rejected with 503
+         */
+        private int schedulerQueueSize = 1000;
+    }
+
+    /**
+     * Pool settings Spring Boot does not have, the others are the usual spring.r2dbc.pool.* ones
+     */
+    @Data
+    public static class Pool {
+
+        /**
+         * How long a query waits for a free connection before failing
+         */
+        private Duration maxAcquireTime = Duration.ofSeconds(5);
+
+        /**
+         * How long opening a new connection may take before failing
+         */
+        private Duration maxCreateConnectionTime = Duration.ofSeconds(5);
+
+        /**
+         * Connections older than that are closed and replaced, 0 keeps them forever
+         */
+        private Duration maxLifeTime = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class Search {
+
+        /**
+         * Answers GET /animes/search from an in memory index of the names instead of the database
+         */
+        private boolean inMemory = true;
+    }
+
+    @Data
+    public static class Changes {
+
+        /**
+         * Number of the last changes kept in memory, a client can resume GET /animes/changes only from one of them
+         */
+        private int replaySize = 1024;
+
+        /**
+         * Number of changes kept for a client that reads them slower than they happen
+         */
+        private int subscriberBufferSize = 256;
+    }
+
+    @Data
+    public static class Seed {
+
+        /**
+         * Seeds the tables that are empty at startup, in the background
+         */
+        private boolean enabled = true;
+
+        /**
+         * NDJSON (or .csv, one name per line) file with the animes to seed instead of the default ones,
+         * e.g. file:/data/animes.ndjson
+         */
+        private Resource file;
+    }
+
+    @Data
+    public static class Web {
+
+        /**
+         * Serves /animes with AnimeRouter and AnimeHandler instead of the annotated AnimeController,
+         * read at startup only
+         */
+        private boolean functional = false;
+    }
+}
@@ -0,0 +1,48 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import academy.devdojo.springwebfluxessentials.controller.AnimeMediaTypes;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+
+/**
+ * Smile and CBOR next to JSON, chosen with the Accept and Content-Type headers, for the service to service traffic.
+ * Their ObjectMappers come from the builder of Spring Boot, so they have the same modules and settings as the
+ * JSON one (Spring would use a plain one for Smile, which cannot read the animes without the parameter names).
+ */
+@Configuration
+public class BinaryCodecsConfig {
+
+    /**
+     * The codecs built with an ObjectMapper default to the JSON types, the Smile ones have to be given again
+     */
+    private static final MimeType[] SMILE_MIME_TYPES = {
+            AnimeMediaTypes.APPLICATION_SMILE, new MimeType("application", "*+x-jackson-smile")};
+
+    /**
+     * CBOR has no default codec, the custom ones are asked before the default ones: the JSON encoder is registered
+     * again ahead of it, so that JSON is still the answer to a client accepting anything
+     */
+    @Bean
+    @Order(2)
+    public CodecCustomizer binaryCodecsCustomizer(final Jackson2ObjectMapperBuilder objectMapperBuilder,
+                                                  final ObjectMapper objectMapper) {
+        final ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        final ObjectMapper cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, SMILE_MIME_TYPES));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, SMILE_MIME_TYPES));
+            configurer.customCodecs().register(new TimedJackson2JsonEncoder(objectMapper));
+            configurer.customCodecs().register(new StreamingJackson2CborEncoder(cborMapper));
+            configurer.customCodecs().register(new CollectingJackson2CborDecoder(cborMapper));
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counterpart of StreamingJackson2CborEncoder: Jackson2CborDecoder refuses to decode a Flux, this one reads the whole
+ * CBOR array and emits its elements. Only for an explicit application/cbor, the other bodies go to the default codecs.
+ */
+public class CollectingJackson2CborDecoder extends Jackson2CborDecoder {
+
+    public CollectingJackson2CborDecoder(final ObjectMapper objectMapper) {
+        super(objectMapper, MediaType.APPLICATION_CBOR);
+    }
+
+    @Override
+    public boolean canDecode(final ResolvableType elementType, @Nullable final MimeType mimeType) {
+        return mimeType != null && !StreamingJackson2CborEncoder.isWildcard(mimeType) && super.canDecode(elementType, mimeType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Flux<Object> decode(final Publisher<DataBuffer> input, final ResolvableType elementType,
+                               @Nullable final MimeType mimeType, @Nullable final Map<String, Object> hints) {
+        final ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+        return decodeToMono(input, listType, mimeType, hints)
+                .flatMapIterable(list -> (List<Object>) list);
+    }
+}
@@ -0,0 +1,48 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import lombok.Value;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Diagnostic flags of a request, asked with the query parameters "trace=true", "timing=true" and "explain=true".
+ * They are parsed once by DiagnosticFlagsFilter and kept in the exchange attributes, only for admins.
+ * <ul>
+ *     <li>trace: the error responses have the stack trace</li>
+ *     <li>explain: the error responses have the exception, its message and the binding errors</li>
+ *     <li>timing: the response has a "Server-Timing" header with the time spent in the database and serializing the body</li>
+ * </ul>
+ */
+@Value
+public class DiagnosticFlags {
+
+    public static final String ATTRIBUTE = DiagnosticFlags.class.getName();
+
+    public static final DiagnosticFlags NONE = new DiagnosticFlags(false, false, false);
+
+    boolean trace;
+
+    boolean timing;
+
+    boolean explain;
+
+    public boolean isAny() {
+        return trace || timing || explain;
+    }
+
+    public static DiagnosticFlags parse(final MultiValueMap<String, String> queryParams) {
+        final DiagnosticFlags flags = new DiagnosticFlags(isTrue(queryParams, "trace"), isTrue(queryParams, "timing"), isTrue(queryParams, "explain"));
+        return flags.isAny() ? flags : NONE;
+    }
+
+    /**
+     * @return the flags of the request, NONE when none was asked or the user is not allowed to use them
+     */
+    public static DiagnosticFlags from(final ServerWebExchange exchange) {
+        return exchange.getAttributeOrDefault(ATTRIBUTE, NONE);
+    }
+
+    private static boolean isTrue(final MultiValueMap<String, String> queryParams, final String name) {
+        return "true".equalsIgnoreCase(queryParams.getFirst(name));
+    }
+}
@@ -0,0 +1,50 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Parses the diagnostic flags of the request once and keeps them in the exchange attributes, see DiagnosticFlags.
+ * They show internals of the application, so they are ignored unless the user is an admin.
+ * Runs after the Spring Security filters, which have the authenticated user.
+ */
+@Component
+public class DiagnosticFlagsFilter implements WebFilter {
+
+    private static final String ADMIN = "ROLE_ADMIN";
+
+    private static final String SERVER_TIMING = "Server-Timing";
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+        if (exchange.getRequest().getURI().getRawQuery() == null) {
+            return chain.filter(exchange);
+        }
+        final DiagnosticFlags requested = DiagnosticFlags.parse(exchange.getRequest().getQueryParams());
+        if (!requested.isAny()) {
+            return chain.filter(exchange);
+        }
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(authentication -> authentication.getAuthorities().stream()
+                        .anyMatch(authority -> ADMIN.equals(authority.getAuthority())))
+                .map(authentication -> requested)
+                .defaultIfEmpty(DiagnosticFlags.NONE)
+                .flatMap(flags -> {
+                    exchange.getAttributes().put(DiagnosticFlags.ATTRIBUTE, flags);
+                    if (!flags.isTiming()) {
+                        return chain.filter(exchange);
+                    }
+                    final ServerTiming serverTiming = new ServerTiming();
+                    exchange.getResponse().beforeCommit(() -> Mono.fromRunnable(() ->
+                            exchange.getResponse().getHeaders().set(SERVER_TIMING, serverTiming.header())));
+                    return chain.filter(exchange)
+                            .contextWrite(ServerTiming.context(serverTiming));
+                });
+    }
+}
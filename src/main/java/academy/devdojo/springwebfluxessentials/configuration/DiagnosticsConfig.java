@@ -0,0 +1,20 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+@Configuration
+public class DiagnosticsConfig {
+
+    /**
+     * Replaces the Jackson encoder set by Spring Boot (order 0), with the same ObjectMapper
+     */
+    @Bean
+    @Order(1)
+    public CodecCustomizer timedJackson2JsonEncoderCustomizer(final ObjectMapper objectMapper) {
+        return configurer -> configurer.defaultCodecs().jackson2JsonEncoder(new TimedJackson2JsonEncoder(objectMapper));
+    }
+}
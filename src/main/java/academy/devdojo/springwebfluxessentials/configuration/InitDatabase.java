@@ -1,29 +1,67 @@
 package academy.devdojo.springwebfluxessentials.configuration;
 
+import academy.devdojo.springwebfluxessentials.dto.ImportSummary;
 import academy.devdojo.springwebfluxessentials.entity.Anime;
+import academy.devdojo.springwebfluxessentials.entity.Authorities;
 import academy.devdojo.springwebfluxessentials.entity.User;
 import academy.devdojo.springwebfluxessentials.repository.AnimeRepository;
 import academy.devdojo.springwebfluxessentials.repository.UserRepository;
+import academy.devdojo.springwebfluxessentials.service.AnimeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.r2dbc.spi.ConnectionFactory;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
 import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
 import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
-import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
-import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
+/**
+ * Creates the tables that do not exist yet and seeds the empty ones in the background, the application
+ * serves requests while the seeding runs.
+ */
 @Slf4j
 @Configuration
-public class InitDatabase {
+@RequiredArgsConstructor
+public class InitDatabase implements ApplicationRunner {
 
-    @Autowired
-    DatabaseClient client;
+    private static final List<Anime> ANIMES = Arrays.asList(
+            Anime.builder().name("Full Metal").build(),
+            Anime.builder().name("Hellsing").build(),
+            Anime.builder().name("Attack Titan").build(),
+            Anime.builder().name("Zeoraima").build());
+
+    private static final List<User> USERS = Arrays.asList(
+            User.builder().name("Capitao Desumano").username("cavalo").password("{bcrypt}$2a$10$B4JueaV/LHpVKSgw2skZteqT1m4OKIF8D6E/Vp1lqqJAl1xbZlyv.").authorities(Authorities.parse("ROLE_ADMIN,ROLE_USER")).build(),
+            User.builder().name("Thaci").username("thacigod").password("{bcrypt}$2a$10$ScXipk72pD5kvpgcBBWqDuACWsX3VRchHyzPT05kOdarWLVXzIAm6").authorities(Authorities.parse("ROLE_USER")).build());
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final AnimeService animeService;
+    private final AnimeRepository animeRepository;
+    private final UserRepository userRepository;
+    private final AnimeProperties animeProperties;
+    private final ObjectMapper objectMapper;
+
+    private final Sinks.One<Void> seeded = Sinks.one();
 
     @Bean
     ConnectionFactoryInitializer initializer(ConnectionFactory connectionFactory) {
@@ -35,36 +73,82 @@ public class InitDatabase {
         return initializer;
     }
 
-    @Bean
-    public CommandLineRunner demo(AnimeRepository animeRepository, UserRepository userRepository) {
+    /**
+     * Starts the seeding and returns right away, animes and users are seeded at the same time.
+     */
+    @Override
+    public void run(final ApplicationArguments args) {
+        if (!animeProperties.getSeed().isEnabled()) {
+            log.info("Database seeding disabled");
+            seeded.tryEmitEmpty();
+            return;
+        }
 
-    //    initializeUserData();
+        Mono.zip(seedAnimes().elapsed(), seedUsers().elapsed())
+                .elapsed()
+                .doOnNext(result -> log.info("Database seeded in {} ms: {} animes in {} ms, {} users in {} ms",
+                        result.getT1(),
+                        result.getT2().getT1().getT2(), result.getT2().getT1().getT1(),
+                        result.getT2().getT2().getT2(), result.getT2().getT2().getT1()))
+                .doOnError(e -> log.error("Database seeding failed", e))
+                .doFinally(signal -> seeded.tryEmitEmpty())
+                .subscribe(result -> { }, e -> { });
+    }
 
-        return (args) -> {
-            // save a few customers
-            animeRepository.saveAll(Arrays.asList(
-                    Anime.builder().name("Full Metal").build(),
-                    Anime.builder().name("Hellsing").build(),
-                    Anime.builder().name("Attack Titan").build(),
-                    Anime.builder().name("Zeoraima").build()))
-                    .blockLast(Duration.ofSeconds(10));
+    /**
+     * Completes once the seeding is over (or failed), the application does not wait for it but a benchmark can.
+     */
+    public Mono<Void> seeded() {
+        return seeded.asMono();
+    }
 
-            userRepository.saveAll(Arrays.asList(
+    private Mono<Long> seedAnimes() {
+        return animeRepository.count()
+                .flatMap(count -> {
+                    if (count > 0) {
+                        return Mono.just(0L);
+                    }
+                    final Resource file = animeProperties.getSeed().getFile();
+                    if (file == null) {
+                        return animeService.saveAll(ANIMES).count();
+                    }
+                    log.info("Seeding animes from {}", file);
+                    return animeService.importAll(readAnimes(file)).map(ImportSummary::getAccepted);
+                });
+    }
 
-                    User.builder().name("Capitao Desumano").username("cavalo").password("{bcrypt}$2a$10$B4JueaV/LHpVKSgw2skZteqT1m4OKIF8D6E/Vp1lqqJAl1xbZlyv.").authorities("ROLE_ADMIN,ROLE_USER").build(),
-                    User.builder().name("Thaci").username("thacigod").password("{bcrypt}$2a$10$ScXipk72pD5kvpgcBBWqDuACWsX3VRchHyzPT05kOdarWLVXzIAm6").authorities("ROLE_USER").build()))
-                    .blockLast(Duration.ofSeconds(10));
-        };
+    private Mono<Long> seedUsers() {
+        return userRepository.count()
+                .flatMap(count -> count > 0 ? Mono.just(0L) : userRepository.saveAll(USERS).count());
     }
 
-//    private void initializeUserData() {
-//        this.client.sql(
-//                "insert into user (id, name, user_name, password, authorities) values (1, 'Capitao Desumano', 'cavalo', '{bcrypt}$2a$10$NG3Rr87jps/cJaDzLVqikecA9XWftUKMH8qSIsKtpVedg1aFdAzFG', 'ROLE_ADMIN,ROLE_USER');"
-//                        + "insert into user (id, name, user_name, password, authorities) values (2, 'Thaci', 'thacigod', '{bcrypt}$2a$10$/MOmwzM4IUymEnJGO8BE7e.pdwPhnqSLGQCYUALcfCP3YU8OUA3yu', 'ROLE_USER');"
-//        )
-//                .fetch()
-//                .rowsUpdated()
-//                .block();
-//    }
+    /**
+     * Reads the file a few KB at a time, one anime per line: NDJSON, or CSV with only the name
+     * (and an optional "name" header) when the file ends with .csv.
+     */
+    Flux<Anime> readAnimes(final Resource file) {
+        final Flux<DataBuffer> buffers = DataBufferUtils.read(file, new DefaultDataBufferFactory(), READ_BUFFER_SIZE);
+
+        if (file.getFilename() != null && file.getFilename().endsWith(".csv")) {
+            return StringDecoder.allMimeTypes()
+                    .decode(buffers, ResolvableType.forClass(String.class), MediaType.TEXT_PLAIN, Collections.emptyMap())
+                    .index()
+                    .filter(line -> !(line.getT1() == 0 && line.getT2().trim().equalsIgnoreCase("name")))
+                    .map(line -> Anime.builder().name(unquote(line.getT2().trim())).build());
+        }
 
+        return new Jackson2JsonDecoder(objectMapper)
+                .decode(buffers, ResolvableType.forClass(Anime.class), MediaType.APPLICATION_NDJSON, Collections.emptyMap())
+                .cast(Anime.class);
+    }
+
+    /**
+     * A CSV field: the quotes around it are removed, and the doubled quotes inside it are written once
+     */
+    static String unquote(final String name) {
+        if (name.length() > 1 && name.startsWith("\"") && name.endsWith("\"")) {
+            return name.substring(1, name.length() - 1).replace("\"\"", "\"");
+        }
+        return name;
+    }
 }
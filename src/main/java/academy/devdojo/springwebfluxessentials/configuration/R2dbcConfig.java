@@ -0,0 +1,119 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import academy.devdojo.springwebfluxessentials.entity.Authorities;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.CustomConversions;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class R2dbcConfig {
+
+    /**
+     * All the repositories share this pool. Boot publishes its gauges as "r2dbc.pool.*" (acquired, idle, pending...)
+     * and the time waited for a connection is published as "r2dbc.pool.acquire".
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool connectionFactory(final R2dbcProperties r2dbcProperties,
+                                            final AnimeProperties animeProperties,
+                                            final MeterRegistry meterRegistry) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(r2dbcProperties.getUrl()).mutate();
+        if (StringUtils.hasText(r2dbcProperties.getUsername())) {
+            options = options.option(ConnectionFactoryOptions.USER, r2dbcProperties.getUsername());
+        }
+        if (StringUtils.hasText(r2dbcProperties.getPassword())) {
+            options = options.option(ConnectionFactoryOptions.PASSWORD, r2dbcProperties.getPassword());
+        }
+
+        final R2dbcProperties.Pool pool = r2dbcProperties.getPool();
+        final AnimeProperties.Pool animePool = animeProperties.getPool();
+        final ConnectionPoolConfiguration.Builder configuration = ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                .name("anime")
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxAcquireTime(animePool.getMaxAcquireTime())
+                .maxCreateConnectionTime(animePool.getMaxCreateConnectionTime())
+                .maxLifeTime(animePool.getMaxLifeTime());
+        if (StringUtils.hasText(pool.getValidationQuery())) {
+            configuration.validationQuery(pool.getValidationQuery());
+        }
+
+        return new TimedConnectionPool(configuration.build(), Timer.builder("r2dbc.pool.acquire")
+                .description("Time waited to get a connection from the pool")
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    @Bean
+    public R2dbcCustomConversions r2dbcCustomConversions(final ConnectionFactory connectionFactory) {
+        final R2dbcDialect dialect = DialectResolver.getDialect(connectionFactory);
+        final List<Object> storeConverters = new ArrayList<>(dialect.getConverters());
+        storeConverters.addAll(R2dbcCustomConversions.STORE_CONVERTERS);
+
+        return new R2dbcCustomConversions(CustomConversions.StoreConversions.of(dialect.getSimpleTypeHolder(), storeConverters),
+                List.of(AuthoritiesReadingConverter.INSTANCE, AuthoritiesWritingConverter.INSTANCE));
+    }
+
+    static class TimedConnectionPool extends ConnectionPool {
+
+        private final Timer acquireTimer;
+
+        TimedConnectionPool(final ConnectionPoolConfiguration configuration, final Timer acquireTimer) {
+            super(configuration);
+            this.acquireTimer = acquireTimer;
+        }
+
+        @Override
+        public Mono<Connection> create() {
+            return Mono.defer(() -> {
+                final long start = System.nanoTime();
+                return super.create()
+                        .doOnSuccess(connection -> acquireTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+            });
+        }
+    }
+
+    /**
+     * Authorities are parsed once, when the user is read from the database
+     */
+    @ReadingConverter
+    enum AuthoritiesReadingConverter implements Converter<String, Authorities> {
+        INSTANCE;
+
+        @Override
+        public Authorities convert(final String source) {
+            return Authorities.parse(source);
+        }
+    }
+
+    @WritingConverter
+    enum AuthoritiesWritingConverter implements Converter<Authorities, String> {
+        INSTANCE;
+
+        @Override
+        public String convert(final Authorities source) {
+            return source.toString();
+        }
+    }
+}
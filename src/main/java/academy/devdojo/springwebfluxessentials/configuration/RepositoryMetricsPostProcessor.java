@@ -0,0 +1,43 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times every call made to a repository as "anime.repository.flow.duration",
+ * tagged with the repository bean name and the method called, the same way AnimeService is timed.
+ * The calls are also added to the "db" phase of the ServerTiming of the request, when it asked for it.
+ */
+@Component
+public class RepositoryMetricsPostProcessor implements BeanPostProcessor {
+
+    private static final String METRIC_NAME = "anime.repository";
+
+    @Override
+    public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+        if (bean instanceof Repository && bean instanceof Advised && !((Advised) bean).isFrozen()) {
+            // first, around the interceptors of Spring Data, some of them answer without calling the next ones
+            ((Advised) bean).addAdvice(0, timed(beanName));
+        }
+        return bean;
+    }
+
+    private static MethodInterceptor timed(final String repository) {
+        return invocation -> {
+            final Object result = invocation.proceed();
+            final String method = invocation.getMethod().getName();
+            if (result instanceof Mono) {
+                return ServerTiming.time(ServerTiming.DB, ((Mono<?>) result).name(METRIC_NAME).tag("repository", repository).tag("method", method).metrics());
+            }
+            if (result instanceof Flux) {
+                return ServerTiming.time(ServerTiming.DB, ((Flux<?>) result).name(METRIC_NAME).tag("repository", repository).tag("method", method).metrics());
+            }
+            return result;
+        };
+    }
+}
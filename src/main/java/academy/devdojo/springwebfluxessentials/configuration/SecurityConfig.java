@@ -1,14 +1,21 @@
 package academy.devdojo.springwebfluxessentials.configuration;
 
+import academy.devdojo.springwebfluxessentials.service.CachingAuthenticationManager;
 import academy.devdojo.springwebfluxessentials.service.UserDetailsService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
 import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.RejectedExecutionException;
 
 @EnableWebFluxSecurity
 @EnableReactiveMethodSecurity
@@ -22,8 +29,13 @@ public class SecurityConfig {
                 .authorizeExchange()
                 .pathMatchers(HttpMethod.POST, "/animes/**").hasRole("ADMIN")
                 .pathMatchers(HttpMethod.PUT, "/animes/**").hasRole("ADMIN")
+                .pathMatchers(HttpMethod.PATCH, "/animes/**").hasRole("ADMIN")
                 .pathMatchers(HttpMethod.DELETE, "/animes/**").hasRole("ADMIN")
+                // listing everything and following the changes are for admins, here and not only with @PreAuthorize
+                // so the functional endpoints (anime.web.functional) have the same rules
+                .pathMatchers(HttpMethod.GET, "/animes", "/animes/changes").hasRole("ADMIN")
                 .pathMatchers(HttpMethod.GET, "/animes/**").hasRole("USER")
+                .pathMatchers("/actuator/**").hasRole("ADMIN")
                 .pathMatchers("/webjars/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
                 .anyExchange().authenticated()
                 .and()
@@ -35,8 +47,30 @@ public class SecurityConfig {
         //@formatter: on
     }
 
+    /**
+     * Password checks (bcrypt) run on their own threads, so they never hold a Netty event loop thread.
+     * Its metrics are published as "executor.*" with the tag name=authentication, once
+     * SpringWebfluxEssentialsApplication enabled the scheduler metrics.
+     */
+    @Bean(destroyMethod = "dispose")
+    Scheduler authenticationScheduler(final AnimeProperties animeProperties) {
+        final AnimeProperties.Security security = animeProperties.getSecurity();
+        return Schedulers.newBoundedElastic(security.getSchedulerThreads(), security.getSchedulerQueueSize(), "authentication");
+    }
+
     @Bean
-    ReactiveAuthenticationManager reactiveAuthenticationManager(final UserDetailsService userDetailsService) {
-        return new UserDetailsRepositoryReactiveAuthenticationManager(userDetailsService);
+    CachingAuthenticationManager reactiveAuthenticationManager(final UserDetailsService userDetailsService,
+                                                               final AnimeProperties animeProperties,
+                                                               final Scheduler authenticationScheduler) {
+        final UserDetailsRepositoryReactiveAuthenticationManager passwordChecker = new UserDetailsRepositoryReactiveAuthenticationManager(userDetailsService);
+        passwordChecker.setScheduler(authenticationScheduler);
+
+        // when the scheduler queue is full the request fails fast instead of waiting
+        final ReactiveAuthenticationManager loadShedding = authentication -> passwordChecker.authenticate(authentication)
+                .onErrorMap(RejectedExecutionException.class,
+                        e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many authentications in progress"));
+
+        final AnimeProperties.Security security = animeProperties.getSecurity();
+        return new CachingAuthenticationManager(loadShedding, security.getMaximumSize(), security.getVerificationTimeToLive());
     }
 }
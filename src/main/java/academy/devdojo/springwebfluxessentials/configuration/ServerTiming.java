@@ -0,0 +1,80 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Time spent by a request in each phase, written in the "Server-Timing" header when the request asked for "timing=true".
+ * It travels in the Reactor context, the phases are timed only when it is there, so the other requests pay nothing.
+ */
+public class ServerTiming {
+
+    public static final String DB = "db";
+
+    public static final String SERIALIZATION = "serialization";
+
+    private final long start = System.nanoTime();
+
+    private final Map<String, LongAdder> phases = new ConcurrentHashMap<>();
+
+    public static Context context(final ServerTiming serverTiming) {
+        return Context.of(ServerTiming.class, serverTiming);
+    }
+
+    public static ServerTiming from(final ContextView context) {
+        return context.getOrDefault(ServerTiming.class, null);
+    }
+
+    /**
+     * Adds the time between the subscription and the end of the Mono to the phase
+     */
+    public static <T> Mono<T> time(final String phase, final Mono<T> mono) {
+        return Mono.deferContextual(context -> {
+            final ServerTiming serverTiming = from(context);
+            if (serverTiming == null) {
+                return mono;
+            }
+            final long start = System.nanoTime();
+            return mono.doFinally(signal -> serverTiming.add(phase, System.nanoTime() - start));
+        });
+    }
+
+    public static <T> Flux<T> time(final String phase, final Flux<T> flux) {
+        return Flux.deferContextual(context -> {
+            final ServerTiming serverTiming = from(context);
+            if (serverTiming == null) {
+                return flux;
+            }
+            final long start = System.nanoTime();
+            return flux.doFinally(signal -> serverTiming.add(phase, System.nanoTime() - start));
+        });
+    }
+
+    public void add(final String phase, final long nanos) {
+        phases.computeIfAbsent(phase, key -> new LongAdder()).add(nanos);
+    }
+
+    /**
+     * @return the header value, for example "db;dur=1.2, serialization;dur=0.3, total;dur=4.5" (milliseconds)
+     */
+    public String header() {
+        final String total = "total;dur=" + millis(System.nanoTime() - start);
+        if (phases.isEmpty()) {
+            return total;
+        }
+        return phases.entrySet().stream()
+                .map(phase -> phase.getKey() + ";dur=" + millis(phase.getValue().sum()))
+                .collect(Collectors.joining(", ", "", ", " + total));
+    }
+
+    private static String millis(final long nanos) {
+        return String.valueOf(nanos / 1000 / 1000.0);
+    }
+}
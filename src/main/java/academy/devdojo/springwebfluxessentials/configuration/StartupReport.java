@@ -0,0 +1,100 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Measures the cold start from the process start (JVM or native executable): until the application is ready
+ * and until the first request is served. Logged once and kept in the application.startup.ready
+ * and application.startup.first.request gauges.
+ * The footprint when ready (loaded classes, heap, resident memory) is logged too, to compare builds and dependencies.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StartupReport implements WebFilter {
+
+    private static final long MB = 1024 * 1024;
+
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+
+    private final AtomicLong readyMillis = new AtomicLong();
+
+    private final AtomicLong firstRequestMillis = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ready() {
+        readyMillis.set(sinceProcessStart());
+        TimeGauge.builder("application.startup.ready", readyMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .register(meterRegistry);
+        log.info("Ready {} ms after the process start, {} classes loaded, {} MB heap used, {} resident",
+                readyMillis.get(),
+                ManagementFactory.getClassLoadingMXBean().getLoadedClassCount(),
+                ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / MB,
+                megabytes(residentMemory()));
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+        if (firstRequestSeen.get() || !firstRequestSeen.compareAndSet(false, true)) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    firstRequestMillis.set(sinceProcessStart());
+                    TimeGauge.builder("application.startup.first.request", firstRequestMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                            .register(meterRegistry);
+                    log.info("First request served {} ms after the process start", firstRequestMillis.get());
+                });
+    }
+
+    /**
+     * VmRSS of /proc/self/status, only on Linux (-1 elsewhere)
+     */
+    private static long residentMemory() {
+        final Path status = Paths.get("/proc/self/status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        try (Stream<String> lines = Files.lines(status)) {
+            return lines.filter(line -> line.startsWith("VmRSS:"))
+                    .map(line -> Long.parseLong(line.replaceAll("\\D", "")) * 1024)
+                    .findFirst()
+                    .orElse(-1L);
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * "n/a" when the size is not known (negative)
+     */
+    private static String megabytes(final long bytes) {
+        return bytes < 0 ? "n/a" : bytes / MB + " MB";
+    }
+
+    private static long sinceProcessStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
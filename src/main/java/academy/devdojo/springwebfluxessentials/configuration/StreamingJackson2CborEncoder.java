@@ -0,0 +1,61 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Jackson2CborEncoder refuses to encode a publisher, this one encodes a Mono as its value and writes a Flux
+ * as an indefinite length CBOR array: the start of the array, every element as soon as it is emitted, then the break.
+ * A Flux is never held in memory, like the JSON array of the default codecs.
+ */
+public class StreamingJackson2CborEncoder extends Jackson2CborEncoder {
+
+    private static final byte START_INDEFINITE_ARRAY = (byte) 0x9F;
+
+    private static final byte BREAK = (byte) 0xFF;
+
+    public StreamingJackson2CborEncoder(final ObjectMapper objectMapper) {
+        super(objectMapper, MediaType.APPLICATION_CBOR);
+    }
+
+    /**
+     * Not for a wildcard type, that one is for JSON
+     */
+    @Override
+    public boolean canEncode(final ResolvableType elementType, @Nullable final MimeType mimeType) {
+        return !isWildcard(mimeType) && super.canEncode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(final Publisher<?> inputStream, final DataBufferFactory bufferFactory,
+                                   final ResolvableType elementType, final MimeType mimeType, final Map<String, Object> hints) {
+        if (inputStream instanceof Mono) {
+            return Mono.from(inputStream)
+                    .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints))
+                    .flux();
+        }
+        return Flux.concat(
+                Mono.fromCallable(() -> singleByte(bufferFactory, START_INDEFINITE_ARRAY)),
+                Flux.from(inputStream).map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)),
+                Mono.fromCallable(() -> singleByte(bufferFactory, BREAK)));
+    }
+
+    private static DataBuffer singleByte(final DataBufferFactory bufferFactory, final byte value) {
+        return bufferFactory.allocateBuffer(1).write(value);
+    }
+
+    static boolean isWildcard(@Nullable final MimeType mimeType) {
+        return mimeType != null && (mimeType.isWildcardType() || mimeType.isWildcardSubtype());
+    }
+}
@@ -0,0 +1,49 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The usual Jackson encoder, adding the time spent serializing every value to the ServerTiming of the request.
+ * Only the serialization is timed, not the wait for the values, which is the database time.
+ */
+public class TimedJackson2JsonEncoder extends Jackson2JsonEncoder {
+
+    public TimedJackson2JsonEncoder(final ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(final Publisher<?> inputStream, final DataBufferFactory bufferFactory,
+                                   final ResolvableType elementType, final MimeType mimeType, final Map<String, Object> hints) {
+        return Flux.deferContextual(context -> {
+            final ServerTiming serverTiming = ServerTiming.from(context);
+            if (serverTiming == null) {
+                return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+            }
+            // a value is encoded in the same thread right after it is emitted,
+            // the buffers written without a value (array brackets and separators) are not counted
+            final AtomicLong valueEmittedAt = new AtomicLong();
+            final Publisher<?> timedInput = inputStream instanceof Mono
+                    ? Mono.from(inputStream).doOnNext(value -> valueEmittedAt.set(System.nanoTime()))
+                    : Flux.from(inputStream).doOnNext(value -> valueEmittedAt.set(System.nanoTime()));
+            return super.encode(timedInput, bufferFactory, elementType, mimeType, hints)
+                    .doOnNext(buffer -> {
+                        final long emittedAt = valueEmittedAt.getAndSet(0);
+                        if (emittedAt != 0) {
+                            serverTiming.add(ServerTiming.SERIALIZATION, System.nanoTime() - emittedAt);
+                        }
+                    });
+        });
+    }
+}
@@ -1,25 +1,38 @@
 package academy.devdojo.springwebfluxessentials.controller;
 
+import academy.devdojo.springwebfluxessentials.dto.AnimeChange;
+import academy.devdojo.springwebfluxessentials.dto.AnimePage;
+import academy.devdojo.springwebfluxessentials.dto.BatchDelete;
+import academy.devdojo.springwebfluxessentials.dto.BatchResult;
+import academy.devdojo.springwebfluxessentials.dto.ImportSummary;
 import academy.devdojo.springwebfluxessentials.entity.Anime;
+import academy.devdojo.springwebfluxessentials.service.AnimeChangeStream;
 import academy.devdojo.springwebfluxessentials.service.AnimeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
 import java.util.List;
 
-@Slf4j
+/**
+ * The responses are JSON, Smile or CBOR according to the Accept header, the request bodies according to Content-Type.
+ */
 @RestController
 @RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "anime.web", name = "functional", havingValue = "false", matchIfMissing = true)
 @RequestMapping("animes")
 @SecurityScheme(
         name = "Basic Authentication",
@@ -30,21 +43,96 @@ public class AnimeController {
 
     private final AnimeService animeService;
 
+    /**
+     * The ETag is the version of the whole table, when the client sends it back in "If-None-Match"
+     * and nothing was written since, the answer is 304 without reading the animes at all.
+     */
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "List all animes",
             security = @SecurityRequirement(name = "Basic Authentication"),
             tags = {"anime"})
-    public Flux<Anime> listAll() {
-        log.info("Call list all animes");
-        return animeService.findAll();
+    public Mono<ResponseEntity<Flux<Anime>>> listAll(final ServerWebExchange exchange) {
+        return animeService.findVersion()
+                .map(version -> {
+                    final String eTag = AnimeETags.ofTableVersion(version);
+                    if (exchange.checkNotModified(eTag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+                    }
+                    return ResponseEntity.ok().eTag(eTag).body(animeService.findAll());
+                });
+    }
+
+    /**
+     * Same as listAll but every anime is written as soon as it is read from the database,
+     * so the client does not need to wait for the whole list to start parsing it.
+     * Ask for it with the header "Accept: application/x-ndjson", "Accept: text/event-stream"
+     * or "Accept: application/stream+x-jackson-smile" (binary).
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE, AnimeMediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Stream all animes",
+            security = @SecurityRequirement(name = "Basic Authentication"),
+            tags = {"anime"})
+    public Flux<Anime> streamAll() {
+        return animeService.streamAll();
+    }
+
+    /**
+     * Server sent events of every anime created, updated or deleted, instead of polling listAll.
+     * A client that lost its connection resumes from the last sequence received, sent as "after" or as the
+     * "Last-Event-ID" header (browsers do it on their own), it gets a 410 when those changes are no longer kept.
+     * @param overflow, what to do when the client reads slower than the changes happen, see AnimeChangeStream.Overflow
+     */
+    @GetMapping(path = "changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Stream the changes made to the animes",
+            security = @SecurityRequirement(name = "Basic Authentication"),
+            tags = {"anime"})
+    public Flux<ServerSentEvent<AnimeChange>> changes(@RequestParam(required = false) final Long after,
+                                                      @RequestHeader(value = "Last-Event-ID", required = false) final Long lastEventId,
+                                                      @RequestParam(defaultValue = "BUFFER") final AnimeChangeStream.Overflow overflow) {
+        return animeService.changes(lastEventId != null ? lastEventId : after, overflow)
+                .map(change -> ServerSentEvent.builder(change)
+                        .id(String.valueOf(change.getSequence()))
+                        .event(change.getType().name())
+                        .build());
+    }
+
+    /**
+     * @param after, id of the last anime received, the page starts right after it. Use 0 to get the first page
+     * @param limit, max number of animes in the page
+     * @return the page and the cursor to be sent as "after" to get the next page, null when it was the last one
+     */
+    @GetMapping(params = "limit")
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "List animes page by page",
+            security = @SecurityRequirement(name = "Basic Authentication"),
+            tags = {"anime"})
+    public Mono<AnimePage> listPage(@RequestParam(defaultValue = "0") final int after, @RequestParam final int limit) {
+        return animeService.findPage(after, limit);
+    }
+
+    /**
+     * @param q, beginning of the name, the case is ignored
+     * @param limit, max number of animes returned
+     * @return the animes whose name starts with q, sorted by name
+     */
+    @GetMapping(path = "search")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Search animes by the beginning of the name",
+            security = @SecurityRequirement(name = "Basic Authentication"),
+            tags = {"anime"})
+    public Flux<Anime> search(@RequestParam final String q, @RequestParam(defaultValue = "20") final int limit) {
+        return animeService.search(q, limit);
     }
 
     /**
      * @param trace, if you put a query string "trace=true" - exemple: http://localhost:8080/animes/18888?trace=true and a exception occurred,
      *               the response will have
-     *               exception trace inside body response.
+     *               exception trace inside body response. Only for admins, see DiagnosticFlags for the other flags.
      * @param id
      * @return
      */
@@ -52,8 +140,10 @@ public class AnimeController {
     @Operation(summary = "Find a anime by id",
             security = @SecurityRequirement(name = "Basic Authentication"),
             tags = {"anime"})
-    public Mono<Anime> findById(@PathVariable final int id) {
-        return animeService.findById(id);
+    public Mono<ResponseEntity<Anime>> findById(@PathVariable final int id) {
+        // Spring answers 304 without writing the body when the ETag matches "If-None-Match"
+        return animeService.findById(id)
+                .map(anime -> ResponseEntity.ok().eTag(AnimeETags.of(anime)).body(anime));
     }
 
     @PostMapping
@@ -74,6 +164,58 @@ public class AnimeController {
         return  animeService.saveAll(animes);
     }
 
+    /**
+     * Imports a catalogue sent as newline delimited json, one anime per line, without buffering the whole body.
+     * Invalid and malformed lines are skipped and reported in the summary.
+     */
+    @PostMapping(path = "import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Import a stream of new animes in database",
+            security = @SecurityRequirement(name = "Basic Authentication"),
+            tags = {"anime"})
+    public Mono<ImportSummary> importLines(@RequestBody final Flux<String> lines){
+        return  animeService.importLines(lines);
+    }
+
+    /**
+     * Imports a catalogue sent as a stream of Smile values, like importLines. A value that cannot be decoded
+     * ends the import, the summary reports what was imported before it.
+     */
+    @PostMapping(path = "import", consumes = AnimeMediaTypes.APPLICATION_STREAM_SMILE_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Import a stream of new animes in database",
+            security = @SecurityRequirement(name = "Basic Authentication"),
+            tags = {"anime"})
+    public Mono<ImportSummary> importAnimes(@RequestBody final Flux<Anime> animes){
+        return  animeService.importAll(animes);
+    }
+
+    /**
+     * Renames every anime of the list (id and new name) in a single transaction.
+     * @return the result of every id, 404 for the ones that do not exist
+     */
+    @PatchMapping(path = "batch")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Rename a list of animes",
+            security = @SecurityRequirement(name = "Basic Authentication"),
+            tags = {"anime"})
+    public Mono<BatchResult> updateBatch(@RequestBody final List<Anime> animes){
+        return  animeService.updateAll(animes);
+    }
+
+    /**
+     * Deletes the animes with the ids sent, or every anime whose name starts with namePrefix, in a single transaction.
+     * @return the result of every id, 404 for the ones that do not exist
+     */
+    @DeleteMapping(path = "batch")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Delete a list of animes",
+            security = @SecurityRequirement(name = "Basic Authentication"),
+            tags = {"anime"})
+    public Mono<BatchResult> deleteBatch(@RequestBody final BatchDelete batchDelete){
+        return  animeService.deleteAll(batchDelete);
+    }
+
     @PutMapping(path = "{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(summary = "Update an anime that already exist in database",
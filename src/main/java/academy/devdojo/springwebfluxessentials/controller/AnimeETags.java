@@ -0,0 +1,26 @@
+package academy.devdojo.springwebfluxessentials.controller;
+
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+
+/**
+ * The ETags of the /animes API, the same for AnimeController and AnimeHandler
+ */
+final class AnimeETags {
+
+    private AnimeETags() {
+    }
+
+    /**
+     * Strong ETag of an anime: its id and its version
+     */
+    static String of(final Anime anime) {
+        return "\"" + anime.getId() + "-" + anime.getVersion() + "\"";
+    }
+
+    /**
+     * Strong ETag of a listing: the version of the whole table
+     */
+    static String ofTableVersion(final long version) {
+        return "\"" + Long.toHexString(version) + "\"";
+    }
+}
@@ -0,0 +1,252 @@
+package academy.devdojo.springwebfluxessentials.controller;
+
+import academy.devdojo.springwebfluxessentials.dto.AnimePage;
+import academy.devdojo.springwebfluxessentials.dto.BatchDelete;
+import academy.devdojo.springwebfluxessentials.dto.ImportSummary;
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import academy.devdojo.springwebfluxessentials.exception.StacklessResponseStatusException;
+import academy.devdojo.springwebfluxessentials.service.AnimeChangeStream;
+import academy.devdojo.springwebfluxessentials.service.AnimeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.MethodNotAllowedException;
+import org.springframework.web.server.NotAcceptableStatusException;
+import reactor.core.publisher.Mono;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The same /animes API as AnimeController, as handler functions: no reflective invocation, argument resolvers
+ * or method security proxy per request. Routed by AnimeRouter, the authorization is done by SecurityConfig.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "anime.web", name = "functional", havingValue = "true")
+public class AnimeHandler {
+
+    /**
+     * Functional endpoints do not negotiate the content type on their own, the first one is the default
+     */
+    private static final List<MediaType> BODY_TYPES = Arrays.asList(
+            MediaType.APPLICATION_JSON, AnimeMediaTypes.APPLICATION_SMILE, MediaType.APPLICATION_CBOR);
+
+    static final List<MediaType> STREAMING_TYPES = Arrays.asList(
+            MediaType.APPLICATION_NDJSON, MediaType.TEXT_EVENT_STREAM, AnimeMediaTypes.APPLICATION_STREAM_SMILE);
+
+    private static final ParameterizedTypeReference<List<Anime>> ANIME_LIST = new ParameterizedTypeReference<List<Anime>>() {
+    };
+
+    private final AnimeService animeService;
+
+    private final Validator validator;
+
+    /**
+     * See AnimeController.listAll, 304 without reading the animes when the table version did not change
+     */
+    public Mono<ServerResponse> listAll(final ServerRequest request) {
+        return animeService.findVersion()
+                .flatMap(version -> {
+                    final String eTag = AnimeETags.ofTableVersion(version);
+                    return request.checkNotModified(eTag)
+                            .switchIfEmpty(Mono.defer(() -> ServerResponse.ok()
+                                    .contentType(negotiate(request))
+                                    .eTag(eTag)
+                                    .body(animeService.findAll(), Anime.class)));
+                });
+    }
+
+    public Mono<ServerResponse> streamAll(final ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(negotiate(request, STREAMING_TYPES))
+                .body(animeService.streamAll(), Anime.class);
+    }
+
+    public Mono<ServerResponse> changes(final ServerRequest request) {
+        final Long lastEventId = Optional.ofNullable(request.headers().firstHeader("Last-Event-ID"))
+                .map(value -> parse(value, Long::valueOf, "Last-Event-ID"))
+                .orElse(null);
+        final Long after = queryParam(request, "after", Long::valueOf).orElse(null);
+        final AnimeChangeStream.Overflow overflow = queryParam(request, "overflow", AnimeChangeStream.Overflow::valueOf)
+                .orElse(AnimeChangeStream.Overflow.BUFFER);
+
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(BodyInserters.fromServerSentEvents(animeService.changes(lastEventId != null ? lastEventId : after, overflow)
+                        .map(change -> ServerSentEvent.builder(change)
+                                .id(String.valueOf(change.getSequence()))
+                                .event(change.getType().name())
+                                .build())));
+    }
+
+    public Mono<ServerResponse> listPage(final ServerRequest request) {
+        final int after = queryParam(request, "after", Integer::valueOf).orElse(0);
+        final int limit = queryParam(request, "limit", Integer::valueOf).orElseThrow(() -> missing("limit"));
+        return ServerResponse.ok()
+                .contentType(negotiate(request))
+                .body(animeService.findPage(after, limit), AnimePage.class);
+    }
+
+    public Mono<ServerResponse> search(final ServerRequest request) {
+        final String q = request.queryParam("q").orElseThrow(() -> missing("q"));
+        final int limit = queryParam(request, "limit", Integer::valueOf).orElse(20);
+        return ServerResponse.ok()
+                .contentType(negotiate(request))
+                .body(animeService.search(q, limit), Anime.class);
+    }
+
+    public Mono<ServerResponse> findById(final ServerRequest request) {
+        return animeService.findById(id(request))
+                .flatMap(anime -> {
+                    final String eTag = AnimeETags.of(anime);
+                    return request.checkNotModified(eTag)
+                            .switchIfEmpty(Mono.defer(() -> ServerResponse.ok()
+                                    .contentType(negotiate(request))
+                                    .eTag(eTag)
+                                    .bodyValue(anime)));
+                });
+    }
+
+    public Mono<ServerResponse> save(final ServerRequest request) {
+        return body(request, Anime.class)
+                .map(this::validate)
+                .flatMap(animeService::save)
+                .flatMap(anime -> ServerResponse.status(HttpStatus.CREATED)
+                        .contentType(negotiate(request))
+                        .bodyValue(anime));
+    }
+
+    public Mono<ServerResponse> saveBatch(final ServerRequest request) {
+        return body(request, ANIME_LIST)
+                .flatMap(animes -> ServerResponse.status(HttpStatus.CREATED)
+                        .contentType(negotiate(request))
+                        .body(animeService.saveAll(animes), Anime.class));
+    }
+
+    public Mono<ServerResponse> importLines(final ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(negotiate(request))
+                .body(animeService.importLines(request.bodyToFlux(String.class)), ImportSummary.class);
+    }
+
+    public Mono<ServerResponse> importAnimes(final ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(negotiate(request))
+                .body(animeService.importAll(request.bodyToFlux(Anime.class)), ImportSummary.class);
+    }
+
+    public Mono<ServerResponse> updateBatch(final ServerRequest request) {
+        return body(request, ANIME_LIST)
+                .flatMap(animeService::updateAll)
+                .flatMap(result -> ServerResponse.ok()
+                        .contentType(negotiate(request))
+                        .bodyValue(result));
+    }
+
+    public Mono<ServerResponse> deleteBatch(final ServerRequest request) {
+        return body(request, BatchDelete.class)
+                .flatMap(animeService::deleteAll)
+                .flatMap(result -> ServerResponse.ok()
+                        .contentType(negotiate(request))
+                        .bodyValue(result));
+    }
+
+    public Mono<ServerResponse> update(final ServerRequest request) {
+        final int id = id(request);
+        return body(request, Anime.class)
+                .map(this::validate)
+                .flatMap(anime -> animeService.update(anime.withId(id)))
+                .then(ServerResponse.noContent().build());
+    }
+
+    public Mono<ServerResponse> delete(final ServerRequest request) {
+        return animeService.delete(id(request))
+                .then(ServerResponse.noContent().build());
+    }
+
+    /**
+     * Other methods on /animes, 405 like the annotated controller instead of the 404 of an unmatched route
+     */
+    public Mono<ServerResponse> methodNotAllowed(final ServerRequest request) {
+        return Mono.error(new MethodNotAllowedException(request.methodName(), Arrays.asList(HttpMethod.GET, HttpMethod.POST)));
+    }
+
+    private static MediaType negotiate(final ServerRequest request) {
+        return negotiate(request, BODY_TYPES);
+    }
+
+    /**
+     * The first of the types the client accepts, by quality, that the endpoint supports, the default one without
+     * Accept header. 406 like the annotated controller when the client accepts none of them.
+     */
+    private static MediaType negotiate(final ServerRequest request, final List<MediaType> supported) {
+        final List<MediaType> accepted = new ArrayList<>(request.headers().accept());
+        if (accepted.isEmpty()) {
+            return supported.get(0);
+        }
+        MediaType.sortBySpecificityAndQuality(accepted);
+        return accepted.stream()
+                .flatMap(type -> supported.stream().filter(type::isCompatibleWith))
+                .findFirst()
+                .orElseThrow(() -> new NotAcceptableStatusException(supported));
+    }
+
+    private static int id(final ServerRequest request) {
+        return parse(request.pathVariable("id"), Integer::valueOf, "id");
+    }
+
+    private static <T> Optional<T> queryParam(final ServerRequest request, final String name, final Function<String, T> parser) {
+        return request.queryParam(name).map(value -> parse(value, parser, name));
+    }
+
+    private static <T> T parse(final String value, final Function<String, T> parser, final String name) {
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException e) {
+            throw new StacklessResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + name);
+        }
+    }
+
+    private static StacklessResponseStatusException missing(final String name) {
+        return new StacklessResponseStatusException(HttpStatus.BAD_REQUEST, "Required parameter " + name + " is missing");
+    }
+
+    private static <T> Mono<T> body(final ServerRequest request, final Class<T> type) {
+        return request.bodyToMono(type)
+                .switchIfEmpty(Mono.error(() -> new StacklessResponseStatusException(HttpStatus.BAD_REQUEST, "Request body is missing")));
+    }
+
+    private static <T> Mono<T> body(final ServerRequest request, final ParameterizedTypeReference<T> type) {
+        return request.bodyToMono(type)
+                .switchIfEmpty(Mono.error(() -> new StacklessResponseStatusException(HttpStatus.BAD_REQUEST, "Request body is missing")));
+    }
+
+    /**
+     * Same checks as @Valid on the annotated controller
+     */
+    private Anime validate(final Anime anime) {
+        final Set<ConstraintViolation<Anime>> violations = validator.validate(anime);
+        if (!violations.isEmpty()) {
+            throw new StacklessResponseStatusException(HttpStatus.BAD_REQUEST, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining(", ")));
+        }
+        return anime;
+    }
+}
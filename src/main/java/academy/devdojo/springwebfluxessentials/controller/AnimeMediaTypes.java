@@ -0,0 +1,23 @@
+package academy.devdojo.springwebfluxessentials.controller;
+
+import org.springframework.http.MediaType;
+
+/**
+ * The binary formats of the /animes API, besides MediaType.APPLICATION_CBOR
+ */
+public final class AnimeMediaTypes {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    /**
+     * Smile values one after the other, each written as soon as it is read, like application/x-ndjson
+     */
+    public static final String APPLICATION_STREAM_SMILE_VALUE = "application/stream+x-jackson-smile";
+
+    public static final MediaType APPLICATION_STREAM_SMILE = MediaType.valueOf(APPLICATION_STREAM_SMILE_VALUE);
+
+    private AnimeMediaTypes() {
+    }
+}
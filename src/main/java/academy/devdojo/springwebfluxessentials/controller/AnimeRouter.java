@@ -0,0 +1,48 @@
+package academy.devdojo.springwebfluxessentials.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RequestPredicate;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Routes of AnimeHandler, on with anime.web.functional=true instead of AnimeController.
+ * The routes are tried in order, so the fixed paths come before "{id}".
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "anime.web", name = "functional", havingValue = "true")
+public class AnimeRouter {
+
+    /**
+     * Only when the client asks for a stream, RequestPredicates.accept would also take a client accepting any type
+     */
+    private static final RequestPredicate STREAMING = request -> request.headers().accept().stream()
+            .anyMatch(type -> AnimeHandler.STREAMING_TYPES.stream().anyMatch(type::equalsTypeAndSubtype));
+
+    @Bean
+    RouterFunction<ServerResponse> animeRoutes(final AnimeHandler handler) {
+        return RouterFunctions.route()
+                .path("/animes", animes -> animes
+                        .GET("", RequestPredicates.queryParam("limit", limit -> true), handler::listPage)
+                        .GET("", STREAMING, handler::streamAll)
+                        .GET("", handler::listAll)
+                        .GET("/changes", handler::changes)
+                        .GET("/search", handler::search)
+                        .GET("/{id}", handler::findById)
+                        .POST("", handler::save)
+                        .POST("/batch", handler::saveBatch)
+                        .POST("/import", RequestPredicates.contentType(MediaType.APPLICATION_NDJSON), handler::importLines)
+                        .POST("/import", RequestPredicates.contentType(AnimeMediaTypes.APPLICATION_STREAM_SMILE), handler::importAnimes)
+                        .PATCH("/batch", handler::updateBatch)
+                        .DELETE("/batch", handler::deleteBatch)
+                        .PUT("/{id}", handler::update)
+                        .DELETE("/{id}", handler::delete)
+                        .route(RequestPredicates.path(""), handler::methodNotAllowed))
+                .build();
+    }
+}
@@ -0,0 +1,30 @@
+package academy.devdojo.springwebfluxessentials.dto;
+
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnimeChange {
+
+    /**
+     * Increases by one on every change, send the last one received as "after" (or Last-Event-ID) to resume from it
+     */
+    private long sequence;
+
+    private Type type;
+
+    /**
+     * The anime after the change, only its id when it was deleted
+     */
+    private Anime anime;
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
@@ -0,0 +1,25 @@
+package academy.devdojo.springwebfluxessentials.dto;
+
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnimePage {
+
+    private List<Anime> content;
+
+    /**
+     * id of the last anime of this page, to be sent back as "after" to get the next one.
+     * It is null when there is no more page.
+     */
+    private Integer nextCursor;
+
+}
@@ -0,0 +1,22 @@
+package academy.devdojo.springwebfluxessentials.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Animes to delete, either by id or every anime whose name starts with namePrefix (ignoring the case)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchDelete {
+
+    private List<Integer> ids;
+
+    private String namePrefix;
+}
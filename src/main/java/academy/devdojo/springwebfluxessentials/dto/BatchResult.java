@@ -0,0 +1,37 @@
+package academy.devdojo.springwebfluxessentials.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchResult {
+
+    private long succeeded;
+
+    private long notFound;
+
+    /**
+     * One item per id, in the order they were sent
+     */
+    private List<Item> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+
+        private int id;
+
+        /**
+         * 200 when the anime was changed, 404 when there is no anime with this id
+         */
+        private int status;
+    }
+}
@@ -0,0 +1,34 @@
+package academy.devdojo.springwebfluxessentials.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportSummary {
+
+    private long accepted;
+
+    private long rejected;
+
+    /**
+     * Details of the first rejected lines only, the total is in "rejected"
+     */
+    private List<Rejection> rejections;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Rejection {
+
+        private long line;
+
+        private String reason;
+    }
+}
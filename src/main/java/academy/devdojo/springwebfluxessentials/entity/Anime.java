@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.With;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Table;
 
 import javax.validation.constraints.NotEmpty;
@@ -24,4 +25,10 @@ public class Anime {
     @NotEmpty(message = "The name of this anime cannot be empty")
     private String name;
 
+    /**
+     * Incremented on every update. Send it back in a PUT to get a 409 instead of overwriting someone else's change.
+     */
+    @Version
+    private Integer version;
+
 }
@@ -0,0 +1,69 @@
+package academy.devdojo.springwebfluxessentials.entity;
+
+import lombok.EqualsAndHashCode;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Authorities of a user, parsed once from the comma separated AUTHORITIES column.
+ * Users with the same authorities share the same instance, and ROLE_USER/ROLE_ADMIN are always the same objects,
+ * so asking for the authorities of a user does not allocate anything.
+ */
+@EqualsAndHashCode(of = "value")
+public final class Authorities {
+
+    private static final Map<String, GrantedAuthority> KNOWN_AUTHORITIES = Map.of(
+            "ROLE_USER", new SimpleGrantedAuthority("ROLE_USER"),
+            "ROLE_ADMIN", new SimpleGrantedAuthority("ROLE_ADMIN"));
+
+    private static final int MAX_INTERNED = 1024;
+
+    private static final Map<String, Authorities> INTERNED = new ConcurrentHashMap<>();
+
+    private final String value;
+
+    private final Set<GrantedAuthority> grantedAuthorities;
+
+    private Authorities(final String value) {
+        this.value = value;
+        final Set<GrantedAuthority> authorities = Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(authority -> !authority.isEmpty())
+                .map(authority -> KNOWN_AUTHORITIES.getOrDefault(authority, new SimpleGrantedAuthority(authority)))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        this.grantedAuthorities = Collections.unmodifiableSet(authorities);
+    }
+
+    public static Authorities parse(final String value) {
+        final String authorities = value == null ? "" : value;
+        final Authorities interned = INTERNED.get(authorities);
+        if (interned != null) {
+            return interned;
+        }
+        // the distinct combinations of roles are few, the limit only protects against unexpected data
+        if (INTERNED.size() >= MAX_INTERNED) {
+            return new Authorities(authorities);
+        }
+        return INTERNED.computeIfAbsent(authorities, Authorities::new);
+    }
+
+    public Set<GrantedAuthority> getGrantedAuthorities() {
+        return grantedAuthorities;
+    }
+
+    /**
+     * @return the comma separated value stored in the database
+     */
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -11,6 +11,8 @@ import java.util.Map;
 @Component
 public class CustomAttributes extends DefaultErrorAttributes {
 
+    public static final String DEVELOPER_MESSAGE = "A ResponseStatusException Happened";
+
     @Override
     public Map<String, Object> getErrorAttributes(final ServerRequest serverRequest, final ErrorAttributeOptions errorAttributeOptions) {
         Map<String, Object> errorAttributesMap = super.getErrorAttributes(serverRequest, errorAttributeOptions);
@@ -18,7 +20,7 @@ public class CustomAttributes extends DefaultErrorAttributes {
         if (throwable instanceof ResponseStatusException) {
             ResponseStatusException responseStatusException = (ResponseStatusException) throwable;
             errorAttributesMap.put("message", responseStatusException.getMessage());
-            errorAttributesMap.put("developerMessage", "A ResponseStatusException Happened");
+            errorAttributesMap.put("developerMessage", DEVELOPER_MESSAGE);
         }
 
         return errorAttributesMap;
@@ -0,0 +1,81 @@
+package academy.devdojo.springwebfluxessentials.exception;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JSON body of a StacklessResponseStatusException, the errors raised by this application, with the same attributes
+ * CustomAttributes gives. The attributes that only depend on the exception (status, error, message) are serialized
+ * once per message, only the timestamp, the path and the request id are written for every request.
+ * The exceptions of Spring (WebExchangeBindException, ServerWebInputException...) are not rendered here: their message
+ * has the nested cause, with the input of the client, and must never be answered to another request.
+ * The ObjectMapper is the one of Spring Boot, so the timestamp is the Date of DefaultErrorAttributes in the same format.
+ */
+public class ErrorBodies {
+
+    // messages with variable parts are evicted first, they are seldom asked again
+    private static final int MAX_CACHED = 256;
+
+    private final ObjectMapper objectMapper;
+
+    private final Cache<String, byte[]> cachedAttributes = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED)
+            .build();
+
+    public ErrorBodies(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public byte[] render(final StacklessResponseStatusException exception, final String path, final String requestId) {
+        final byte[] attributes = attributes(exception);
+        final byte[] head = ("{\"timestamp\":" + write(new Date())
+                + ",\"path\":\"" + quote(path)
+                + "\",\"requestId\":\"" + quote(requestId)
+                + "\",").getBytes(StandardCharsets.UTF_8);
+
+        final byte[] body = new byte[head.length + attributes.length];
+        System.arraycopy(head, 0, body, 0, head.length);
+        System.arraycopy(attributes, 0, body, head.length, attributes.length);
+        return body;
+    }
+
+    /**
+     * The attributes without the opening brace, so they can be appended to the ones written per request
+     */
+    private byte[] attributes(final StacklessResponseStatusException exception) {
+        // the message starts with the status, and it is what the body has
+        return cachedAttributes.get(exception.getMessage(), key -> serialize(exception));
+    }
+
+    private byte[] serialize(final StacklessResponseStatusException exception) {
+        final Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("status", exception.getStatus().value());
+        attributes.put("error", exception.getStatus().getReasonPhrase());
+        attributes.put("message", exception.getMessage());
+        attributes.put("developerMessage", CustomAttributes.DEVELOPER_MESSAGE);
+        final byte[] json = write(attributes).getBytes(StandardCharsets.UTF_8);
+        final byte[] withoutOpeningBrace = new byte[json.length - 1];
+        System.arraycopy(json, 1, withoutOpeningBrace, 0, withoutOpeningBrace.length);
+        return withoutOpeningBrace;
+    }
+
+    private String write(final Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String quote(final String value) {
+        return new String(JsonStringEncoder.getInstance().quoteAsString(value));
+    }
+}
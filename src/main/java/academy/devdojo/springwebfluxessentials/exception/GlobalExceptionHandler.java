@@ -1,6 +1,8 @@
 package academy.devdojo.springwebfluxessentials.exception;
 
 
+import academy.devdojo.springwebfluxessentials.configuration.DiagnosticFlags;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.boot.autoconfigure.web.WebProperties;
 import org.springframework.boot.autoconfigure.web.reactive.error.AbstractErrorWebExceptionHandler;
 import org.springframework.boot.web.error.ErrorAttributeOptions;
@@ -10,7 +12,6 @@ import org.springframework.core.annotation.Order;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerCodecConfigurer;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.*;
 import reactor.core.publisher.Mono;
@@ -22,12 +23,16 @@ import java.util.Optional;
 @Order(-2)
 public class GlobalExceptionHandler extends AbstractErrorWebExceptionHandler {
 
+    private final ErrorBodies errorBodies;
+
     public GlobalExceptionHandler(ErrorAttributes errorAttributes,
                                   WebProperties.Resources resources,
                                   ApplicationContext applicationContext,
-                                  ServerCodecConfigurer serverCodecConfigurer) {
+                                  ServerCodecConfigurer serverCodecConfigurer,
+                                  ObjectMapper objectMapper) {
         super(errorAttributes, resources, applicationContext);
         this.setMessageWriters(serverCodecConfigurer.getWriters());
+        this.errorBodies = new ErrorBodies(objectMapper);
     }
 
     @Override
@@ -37,8 +42,26 @@ public class GlobalExceptionHandler extends AbstractErrorWebExceptionHandler {
 
     private Mono<ServerResponse> formatErrorResponse(ServerRequest request){
 
-        final String query = request.uri().getQuery();
-        final ErrorAttributeOptions errorAttributeOptions = isTraceEnabled(query) ? ErrorAttributeOptions.of(ErrorAttributeOptions.Include.STACK_TRACE) : ErrorAttributeOptions.defaults();
+        final DiagnosticFlags flags = DiagnosticFlags.from(request.exchange());
+
+        // the errors of the application get a body mostly serialized in advance, the full attributes are built
+        // for trace or explain, and for the errors of Spring, whose message has the input of the client
+        final Throwable error = getError(request);
+        if (!flags.isTrace() && !flags.isExplain() && error instanceof StacklessResponseStatusException) {
+            final StacklessResponseStatusException responseStatusException = (StacklessResponseStatusException) error;
+            return ServerResponse.status(responseStatusException.getStatus())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(errorBodies.render(responseStatusException, request.path(), request.exchange().getRequest().getId()));
+        }
+
+        ErrorAttributeOptions errorAttributeOptions = ErrorAttributeOptions.defaults();
+        if (flags.isTrace()) {
+            errorAttributeOptions = errorAttributeOptions.including(ErrorAttributeOptions.Include.STACK_TRACE);
+        }
+        if (flags.isExplain()) {
+            errorAttributeOptions = errorAttributeOptions.including(ErrorAttributeOptions.Include.EXCEPTION,
+                    ErrorAttributeOptions.Include.MESSAGE, ErrorAttributeOptions.Include.BINDING_ERRORS);
+        }
 
         Map<String, Object> errorAttributesMap = getErrorAttributes(request, errorAttributeOptions);
         final int status = (int) Optional.ofNullable(errorAttributesMap.get("status")).orElse(500);
@@ -47,8 +70,4 @@ public class GlobalExceptionHandler extends AbstractErrorWebExceptionHandler {
                 .contentType(MediaType.APPLICATION_JSON)
                 .body(BodyInserters.fromValue(errorAttributesMap));
     }
-
-    private boolean isTraceEnabled(final String query){
-        return !StringUtils.isEmpty(query) && query.contains("trace=true");
-    }
 }
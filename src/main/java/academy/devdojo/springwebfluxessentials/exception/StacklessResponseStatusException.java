@@ -0,0 +1,20 @@
+package academy.devdojo.springwebfluxessentials.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * ResponseStatusException for the expected errors (not found, invalid input...), which are answered to the client
+ * and never logged with their stack, so the stack is not captured: that is most of the cost of creating an exception.
+ */
+public class StacklessResponseStatusException extends ResponseStatusException {
+
+    public StacklessResponseStatusException(final HttpStatus status, final String reason) {
+        super(status, reason);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,27 @@
+package academy.devdojo.springwebfluxessentials.repository;
+
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+public interface AnimeBulkRepository {
+
+    /**
+     * Inserts the animes in chunks, each chunk being a single batched statement,
+     * and returns them with the ids generated by the database, in the same order.
+     */
+    Flux<Anime> insertAll(final List<Anime> animes);
+
+    /**
+     * Renames the animes in chunks, each chunk being a single UPDATE ... WHERE ID IN (...),
+     * and returns the ids that were found and updated. Run it in a transaction to update all or nothing.
+     */
+    Flux<Integer> updateNames(final List<Anime> animes);
+
+    /**
+     * Deletes the animes in chunks, each chunk being a single DELETE ... WHERE ID IN (...),
+     * and returns the ids that were found and deleted. Run it in a transaction to delete all or nothing.
+     */
+    Flux<Integer> deleteAllByIdIn(final List<Integer> ids);
+}
@@ -0,0 +1,99 @@
+package academy.devdojo.springwebfluxessentials.repository;
+
+import academy.devdojo.springwebfluxessentials.configuration.AnimeProperties;
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class AnimeBulkRepositoryImpl implements AnimeBulkRepository {
+
+    private static final String INSERT_ANIME = "INSERT INTO ANIME (NAME) VALUES ($1)";
+
+    // the rows are locked until the end of the transaction, so the ids returned are the ones changed right after
+    private static final String SELECT_IDS_FOR_UPDATE = "SELECT ID FROM ANIME WHERE ID IN (:ids) FOR UPDATE";
+
+    private static final String DELETE_ANIMES = "DELETE FROM ANIME WHERE ID IN (:ids)";
+
+    private final DatabaseClient databaseClient;
+    private final AnimeProperties animeProperties;
+
+    @Override
+    public Flux<Anime> insertAll(final List<Anime> animes) {
+        return Flux.fromIterable(animes)
+                .buffer(animeProperties.getInsert().getChunkSize())
+                .concatMap(this::insertChunk);
+    }
+
+    @Override
+    public Flux<Integer> updateNames(final List<Anime> animes) {
+        return Flux.fromIterable(animes)
+                .buffer(animeProperties.getInsert().getChunkSize())
+                .concatMap(chunk -> {
+                    final List<Integer> ids = chunk.stream().map(Anime::getId).collect(Collectors.toList());
+                    return selectIdsForUpdate(ids)
+                            .collectList()
+                            .filter(found -> !found.isEmpty())
+                            .flatMapMany(found -> updateNamesChunk(chunk, ids).thenMany(Flux.fromIterable(found)));
+                });
+    }
+
+    @Override
+    public Flux<Integer> deleteAllByIdIn(final List<Integer> ids) {
+        return Flux.fromIterable(ids)
+                .buffer(animeProperties.getInsert().getChunkSize())
+                .concatMap(chunk -> selectIdsForUpdate(chunk)
+                        .collectList()
+                        .filter(found -> !found.isEmpty())
+                        .flatMapMany(found -> databaseClient.sql(DELETE_ANIMES)
+                                .bind("ids", chunk)
+                                .fetch()
+                                .rowsUpdated()
+                                .thenMany(Flux.fromIterable(found))));
+    }
+
+    private Flux<Integer> selectIdsForUpdate(final List<Integer> ids) {
+        return databaseClient.sql(SELECT_IDS_FOR_UPDATE)
+                .bind("ids", ids)
+                .map(row -> row.get("ID", Integer.class))
+                .all();
+    }
+
+    /**
+     * UPDATE ANIME SET NAME = CASE ID WHEN :id0 THEN :name0 WHEN :id1 THEN :name1 ... END WHERE ID IN (:ids)
+     */
+    private Mono<Integer> updateNamesChunk(final List<Anime> chunk, final List<Integer> ids) {
+        final StringBuilder sql = new StringBuilder("UPDATE ANIME SET NAME = CASE ID");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(" WHEN :id").append(i).append(" THEN :name").append(i);
+        }
+        sql.append(" END, VERSION = VERSION + 1 WHERE ID IN (:ids)");
+
+        DatabaseClient.GenericExecuteSpec statement = databaseClient.sql(sql.toString()).bind("ids", ids);
+        for (int i = 0; i < chunk.size(); i++) {
+            statement = statement.bind("id" + i, chunk.get(i).getId()).bind("name" + i, chunk.get(i).getName());
+        }
+        return statement.fetch().rowsUpdated();
+    }
+
+    private Flux<Anime> insertChunk(final List<Anime> chunk) {
+        return databaseClient.inConnectionMany(connection -> {
+            final Statement statement = connection.createStatement(INSERT_ANIME)
+                    .returnGeneratedValues("ID");
+            for (int i = 0; i < chunk.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                statement.bind(0, chunk.get(i).getName());
+            }
+            return Flux.from(statement.execute())
+                    .concatMap(result -> result.map((row, rowMetadata) -> row.get(0, Integer.class)));
+        }).zipWithIterable(chunk, (id, anime) -> anime.withId(id).withVersion(0));
+    }
+}
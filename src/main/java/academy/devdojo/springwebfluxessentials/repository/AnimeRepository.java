@@ -1,12 +1,58 @@
 package academy.devdojo.springwebfluxessentials.repository;
 
 import academy.devdojo.springwebfluxessentials.entity.Anime;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 @Repository
-public interface AnimeRepository extends ReactiveCrudRepository<Anime, Integer> {
+public interface AnimeRepository extends ReactiveCrudRepository<Anime, Integer>, AnimeBulkRepository {
 
     Mono<Anime> findById(final int id);
+
+    Flux<Anime> findByIdIn(final Collection<Integer> ids);
+
+    /**
+     * Keyset pagination: seeks on the primary key instead of using OFFSET,
+     * so every page costs the same no matter how deep the client goes.
+     */
+    @Query("SELECT * FROM ANIME WHERE ID > :after ORDER BY ID LIMIT :limit")
+    Flux<Anime> findPageAfter(final int after, final int limit);
+
+    /**
+     * Case insensitive prefix search as a range on the indexed NAME_LOWER column, "from" is the lower case prefix
+     * and "to" the first string after every name starting with it, so only the matching rows are read.
+     */
+    @Query("SELECT ID, NAME, VERSION FROM ANIME WHERE NAME_LOWER >= :from AND NAME_LOWER < :to ORDER BY NAME_LOWER, ID LIMIT :limit")
+    Flux<Anime> searchByName(final String from, final String to, final int limit);
+
+    @Query("SELECT ID FROM ANIME WHERE NAME_LOWER >= :from AND NAME_LOWER < :to")
+    Flux<Integer> findIdsByName(final String from, final String to);
+
+    /**
+     * Single statement updates, the number of rows updated tells if the anime was found (and still had that version)
+     */
+    @Modifying
+    @Query("UPDATE ANIME SET NAME = :name, VERSION = VERSION + 1 WHERE ID = :id")
+    Mono<Integer> updateName(final int id, final String name);
+
+    @Modifying
+    @Query("UPDATE ANIME SET NAME = :name, VERSION = VERSION + 1 WHERE ID = :id AND VERSION = :version")
+    Mono<Integer> updateName(final int id, final String name, final int version);
+
+    @Modifying
+    @Query("DELETE FROM ANIME WHERE ID = :id")
+    Mono<Integer> deleteAnime(final int id);
+
+    @Query("SELECT VERSION FROM ANIME_TABLE_VERSION WHERE ID = 1")
+    Mono<Long> findTableVersion();
+
+    @Modifying
+    @Query("UPDATE ANIME_TABLE_VERSION SET VERSION = VERSION + 1 WHERE ID = 1")
+    Mono<Integer> incrementTableVersion();
 }
@@ -0,0 +1,105 @@
+package academy.devdojo.springwebfluxessentials.service;
+
+import academy.devdojo.springwebfluxessentials.configuration.AnimeProperties;
+import academy.devdojo.springwebfluxessentials.configuration.ServerTiming;
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import academy.devdojo.springwebfluxessentials.repository.AnimeRepository;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the ids asked to findById with "WHERE ID IN (...)" queries.
+ * An id asked while a query slot is free is sent right away, so a lone request never waits for a batch,
+ * the ids asked while all the slots are busy wait for the next free one and are sent together (up to the batch max size),
+ * then every caller gets its own anime back, or an empty Mono when it does not exist.
+ */
+@Component
+public class AnimeBatchLoader {
+
+    private final AnimeRepository animeRepository;
+
+    private final int maxSize;
+
+    private final int concurrency;
+
+    private final Queue<PendingLoad> pendingLoads = new ArrayDeque<>();
+
+    private int runningQueries;
+
+    public AnimeBatchLoader(final AnimeRepository animeRepository, final AnimeProperties animeProperties) {
+        this.animeRepository = animeRepository;
+        this.maxSize = animeProperties.getBatch().getMaxSize();
+        this.concurrency = animeProperties.getBatch().getConcurrency();
+    }
+
+    public Mono<Anime> load(final int id) {
+        // the batched query runs outside of the request, so the request times its own wait for it
+        return ServerTiming.time(ServerTiming.DB,
+                Mono.create(sink -> {
+                    enqueue(new PendingLoad(id, sink));
+                    dispatchNext();
+                }));
+    }
+
+    private synchronized void enqueue(final PendingLoad pendingLoad) {
+        pendingLoads.add(pendingLoad);
+    }
+
+    private void dispatchNext() {
+        final List<PendingLoad> batch = takeBatch();
+        if (!batch.isEmpty()) {
+            dispatch(batch)
+                    .doFinally(signalType -> {
+                        releaseQuery();
+                        dispatchNext();
+                    })
+                    .subscribe();
+        }
+    }
+
+    private synchronized List<PendingLoad> takeBatch() {
+        final List<PendingLoad> batch = new ArrayList<>();
+        if (runningQueries < concurrency) {
+            while (batch.size() < maxSize && !pendingLoads.isEmpty()) {
+                batch.add(pendingLoads.poll());
+            }
+        }
+        if (!batch.isEmpty()) {
+            runningQueries++;
+        }
+        return batch;
+    }
+
+    private synchronized void releaseQuery() {
+        runningQueries--;
+    }
+
+    private Mono<Void> dispatch(final List<PendingLoad> batch) {
+        final Set<Integer> ids = batch.stream()
+                .map(PendingLoad::getId)
+                .collect(Collectors.toSet());
+
+        return animeRepository.findByIdIn(ids)
+                .collectMap(Anime::getId)
+                .doOnNext(animes -> batch.forEach(pendingLoad -> pendingLoad.getSink().success(animes.get(pendingLoad.getId()))))
+                .doOnError(error -> batch.forEach(pendingLoad -> pendingLoad.getSink().error(error)))
+                // one failed batch must not keep the ids waiting behind it
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    @Value
+    private static class PendingLoad {
+        int id;
+        MonoSink<Anime> sink;
+    }
+}
@@ -0,0 +1,64 @@
+package academy.devdojo.springwebfluxessentials.service;
+
+import academy.devdojo.springwebfluxessentials.configuration.AnimeProperties;
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In memory cache of the animes read by id, bounded in size and time (Caffeine W-TinyLFU eviction).
+ * Hits, misses and evictions are published as the "cache.*" metrics with the tag cache=anime.
+ */
+@Component
+public class AnimeCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "anime";
+
+    private final AsyncCache<Integer, Anime> cache;
+
+    public AnimeCache(final AnimeProperties animeProperties) {
+        final AnimeProperties.Cache properties = animeProperties.getCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTimeToLive())
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Returns the cached anime or subscribes to the loader to get it.
+     * Concurrent misses of the same id share one single load, and an empty load is not cached.
+     */
+    public Mono<Anime> get(final int id, final Supplier<Mono<Anime>> loader) {
+        return Mono.defer(() -> Mono.fromFuture(cache.get(id, (key, executor) -> loader.get().toFuture())
+                // every subscriber gets its own future, so a cancelled request does not cancel the shared load
+                .thenApply(Function.identity())));
+    }
+
+    public void put(final Anime anime) {
+        cache.put(anime.getId(), CompletableFuture.completedFuture(anime));
+    }
+
+    public void invalidate(final int id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache.synchronous(), CACHE_NAME);
+    }
+}
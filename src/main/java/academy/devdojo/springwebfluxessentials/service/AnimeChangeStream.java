@@ -0,0 +1,116 @@
+package academy.devdojo.springwebfluxessentials.service;
+
+import academy.devdojo.springwebfluxessentials.configuration.AnimeProperties;
+import academy.devdojo.springwebfluxessentials.dto.AnimeChange;
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import academy.devdojo.springwebfluxessentials.exception.StacklessResponseStatusException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every subscriber of the changes shares the same in memory sink, which keeps the last changes
+ * so a client that lost its connection can resume from the last sequence it received.
+ * Each subscriber has its own buffer, so a slow one never slows down the writes or the other subscribers.
+ */
+@Component
+public class AnimeChangeStream {
+
+    public enum Overflow {
+        /**
+         * Keeps up to anime.changes.subscriber-buffer-size changes, then ends the stream with an error
+         * and the client resumes from the last sequence it received
+         */
+        BUFFER,
+        /**
+         * Keeps the most recent changes when the buffer is full, the client sees a gap in the sequence
+         */
+        DROP_OLDEST,
+        /**
+         * Keeps only the most recent change
+         */
+        LATEST,
+        /**
+         * Drops the changes arriving while the client is busy
+         */
+        DROP
+    }
+
+    private final Sinks.Many<AnimeChange> sink;
+
+    private final int subscriberBufferSize;
+
+    // starts at the current time in millis, so a sequence is never reused after a restart
+    private final long firstSequence = System.currentTimeMillis();
+
+    private final AtomicLong sequence = new AtomicLong(firstSequence);
+
+    public AnimeChangeStream(final AnimeProperties animeProperties) {
+        final AnimeProperties.Changes properties = animeProperties.getChanges();
+        this.sink = Sinks.many().replay().limit(properties.getReplaySize());
+        this.subscriberBufferSize = properties.getSubscriberBufferSize();
+    }
+
+    /**
+     * Publishes the changes once the current transaction is committed, right away when there is no transaction
+     */
+    public Mono<Void> publish(final AnimeChange.Type type, final Collection<Anime> animes) {
+        if (animes.isEmpty()) {
+            return Mono.empty();
+        }
+        return TransactionCallbacks.afterCommit(() -> emit(type, animes));
+    }
+
+    /**
+     * @param after, sequence of the last change received, null to get only the changes made from now on
+     * @return the changes made after it, or a 410 error when they are no longer kept and the client must list the animes again
+     */
+    public Flux<AnimeChange> changes(final Long after, final Overflow overflow) {
+        return Flux.defer(() -> {
+            final long current = sequence.get();
+            // before the first sequence, the changes were made before a restart and are lost; right away, as the
+            // replay buffer may be empty and the check on the first change replayed would wait for the next change
+            if (after != null && (after > current || after < firstSequence)) {
+                return Flux.error(gone(after));
+            }
+            final long from = after == null ? current : after;
+            final Flux<AnimeChange> changes = sink.asFlux()
+                    // the first change replayed is the oldest one kept
+                    .switchOnFirst((first, replayed) -> after != null && first.hasValue() && first.get().getSequence() > after + 1
+                            ? Flux.error(gone(after))
+                            : replayed)
+                    .filter(change -> change.getSequence() > from);
+            return withOverflow(changes, overflow);
+        });
+    }
+
+    private synchronized void emit(final AnimeChange.Type type, final Collection<Anime> animes) {
+        // synchronized so the changes are emitted in sequence order, and the sink is never called concurrently
+        for (final Anime anime : animes) {
+            sink.emitNext(new AnimeChange(sequence.incrementAndGet(), type, anime), Sinks.EmitFailureHandler.FAIL_FAST);
+        }
+    }
+
+    private Flux<AnimeChange> withOverflow(final Flux<AnimeChange> changes, final Overflow overflow) {
+        switch (overflow) {
+            case DROP_OLDEST:
+                return changes.onBackpressureBuffer(subscriberBufferSize, BufferOverflowStrategy.DROP_OLDEST);
+            case LATEST:
+                return changes.onBackpressureLatest();
+            case DROP:
+                return changes.onBackpressureDrop();
+            default:
+                return changes.onBackpressureBuffer(subscriberBufferSize);
+        }
+    }
+
+    private static StacklessResponseStatusException gone(final long after) {
+        return new StacklessResponseStatusException(HttpStatus.GONE, "Changes after " + after + " are no longer available, list the animes again");
+    }
+}
@@ -0,0 +1,129 @@
+package academy.devdojo.springwebfluxessentials.service;
+
+import academy.devdojo.springwebfluxessentials.configuration.AnimeProperties;
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * In memory index of the anime names, sorted by lower case name, so a prefix search is a range read
+ * that costs O(log n) plus the number of animes returned, no matter how big the catalogue is.
+ * It only sees the animes written through AnimeService, rows changed straight in the database are missed
+ * until the application restarts, disable it with anime.search.in-memory=false when that happens.
+ */
+@Component
+public class AnimeNameIndex {
+
+    private final boolean enabled;
+
+    private final ConcurrentSkipListMap<String, Anime> animesByName = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentHashMap<Integer, String> keysById = new ConcurrentHashMap<>();
+
+    private final Set<Integer> removedWhileLoading = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean ready;
+
+    public AnimeNameIndex(final AnimeProperties animeProperties) {
+        this.enabled = animeProperties.getSearch().isInMemory();
+    }
+
+    /**
+     * @return true once every anime of the database was loaded, until then searches must go to the database
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Loads the animes already in the database. Animes written while it loads win over the ones being loaded.
+     */
+    public Mono<Void> load(final Flux<Anime> animes) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return animes
+                .filter(anime -> !removedWhileLoading.contains(anime.getId()))
+                .doOnNext(anime -> keysById.computeIfAbsent(anime.getId(), id -> index(anime)))
+                .then()
+                .doOnSuccess(ignored -> {
+                    ready = true;
+                    removedWhileLoading.clear();
+                });
+    }
+
+    public void put(final Anime anime) {
+        if (!enabled || anime.getName() == null) {
+            return;
+        }
+        keysById.compute(anime.getId(), (id, oldKey) -> {
+            if (oldKey != null) {
+                animesByName.remove(oldKey);
+            }
+            return index(anime);
+        });
+    }
+
+    /**
+     * The anime was renamed by an UPDATE, which increments the version: the new version is the one sent plus one,
+     * or the indexed one plus one when the update was not versioned (unknown when the anime is not indexed yet).
+     */
+    public void rename(final Anime anime) {
+        if (!enabled || anime.getName() == null) {
+            return;
+        }
+        keysById.compute(anime.getId(), (id, oldKey) -> {
+            Integer version = anime.getVersion();
+            if (oldKey != null) {
+                final Anime indexed = animesByName.remove(oldKey);
+                if (version == null && indexed != null) {
+                    version = indexed.getVersion();
+                }
+            }
+            return index(anime.withVersion(version == null ? null : version + 1));
+        });
+    }
+
+    public void remove(final int id) {
+        if (!enabled) {
+            return;
+        }
+        if (!ready) {
+            removedWhileLoading.add(id);
+        }
+        keysById.computeIfPresent(id, (key, oldKey) -> {
+            animesByName.remove(oldKey);
+            return null;
+        });
+    }
+
+    /**
+     * @return the first animes, sorted by name, whose name starts with the prefix, ignoring the case
+     */
+    public List<Anime> search(final String prefix, final int limit) {
+        final String from = normalize(prefix);
+        return animesByName.subMap(from, from + Character.MAX_VALUE).values().stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public static String normalize(final String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private String index(final Anime anime) {
+        // the id makes the key unique, padded so animes with the same name keep the id order of the database
+        final String key = normalize(anime.getName()) + '\u0000' + String.format("%010d", anime.getId());
+        // with the version, so a search result can be sent back in a versioned update
+        animesByName.put(key, anime);
+        return key;
+    }
+}
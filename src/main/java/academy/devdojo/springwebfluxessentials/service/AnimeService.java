@@ -1,62 +1,384 @@
 package academy.devdojo.springwebfluxessentials.service;
 
+import academy.devdojo.springwebfluxessentials.configuration.AnimeProperties;
+import academy.devdojo.springwebfluxessentials.dto.AnimeChange;
+import academy.devdojo.springwebfluxessentials.dto.AnimePage;
+import academy.devdojo.springwebfluxessentials.dto.BatchDelete;
+import academy.devdojo.springwebfluxessentials.dto.BatchResult;
+import academy.devdojo.springwebfluxessentials.dto.ImportSummary;
 import academy.devdojo.springwebfluxessentials.entity.Anime;
+import academy.devdojo.springwebfluxessentials.exception.StacklessResponseStatusException;
 import academy.devdojo.springwebfluxessentials.repository.AnimeRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Metrics;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.codec.DecodingException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Every method is timed by Reactor as "anime.service.flow.duration" with the tag method=name of the method,
+ * and every ResponseStatusException raised is counted as "anime.service.errors" with its status.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AnimeService {
 
+    private static final int MAX_REJECTIONS_REPORTED = 100;
+
+    private static final String METRIC_NAME = "anime.service";
+
     private final AnimeRepository animeRepository;
+    private final AnimeProperties animeProperties;
+    private final AnimeCache animeCache;
+    private final AnimeBatchLoader animeBatchLoader;
+    private final AnimeNameIndex animeNameIndex;
+    private final AnimeChangeStream animeChangeStream;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Searches go to the database until the in memory index of the names is loaded
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadNameIndex() {
+        animeNameIndex.load(animeRepository.findAll())
+                .subscribe(null, e -> log.error("Could not load the name index, the searches keep going to the database", e));
+    }
 
     public Flux<Anime> findAll() {
-        return animeRepository.findAll();
+        return timed("findAll", animeRepository.findAll());
+    }
+
+    /**
+     * Version of the whole ANIME table, incremented after every write made by this service.
+     * Reading it is a single row lookup, so it is a cheap way to know if a listing the client already has is still valid.
+     */
+    public Mono<Long> findVersion() {
+        return timed("findVersion", animeRepository.findTableVersion());
+    }
+
+    public Flux<AnimeChange> changes(final Long after, final AnimeChangeStream.Overflow overflow) {
+        return animeChangeStream.changes(after, overflow);
+    }
+
+    public Flux<Anime> streamAll() {
+        return timed("streamAll", animeRepository.findAll()
+                .limitRate(animeProperties.getStream().getChunkSize()));
+    }
+
+    public Mono<AnimePage> findPage(final int after, final int limit) {
+        if (limit < 1 || limit > animeProperties.getPage().getMaxLimit()) {
+            return monoResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit");
+        }
+        return timed("findPage", animeRepository.findPageAfter(after, limit)
+                .collectList()
+                .map(animes -> AnimePage.builder()
+                        .content(animes)
+                        .nextCursor(animes.size() < limit ? null : animes.get(animes.size() - 1).getId())
+                        .build()));
+    }
+
+    public Flux<Anime> search(final String query, final int limit) {
+        if (StringUtils.isBlank(query)) {
+            return this.<Anime>monoResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid query").flux();
+        }
+        if (limit < 1 || limit > animeProperties.getPage().getMaxLimit()) {
+            return this.<Anime>monoResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit").flux();
+        }
+        if (animeNameIndex.isReady()) {
+            return timed("search", Flux.defer(() -> Flux.fromIterable(animeNameIndex.search(query, limit))));
+        }
+        final String from = AnimeNameIndex.normalize(query);
+        return timed("search", animeRepository.searchByName(from, from + Character.MAX_VALUE, limit));
     }
 
     public Mono<Anime> findById(final int id) {
-        return animeRepository.findById(id).switchIfEmpty(monoResponseStatusNotFoundException(HttpStatus.NOT_FOUND, "Anime not found"));
+        return timed("findById", animeCache.get(id, () -> animeBatchLoader.load(id))
+                .switchIfEmpty(monoResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found")));
     }
 
-    public <T> Mono<T> monoResponseStatusNotFoundException(final HttpStatus status, final String message) {
-        return Mono.error(new ResponseStatusException(status, message));
+    public <T> Mono<T> monoResponseStatusException(final HttpStatus status, final String message) {
+        return Mono.error(() -> responseStatusException(status, message));
     }
 
     public Mono<Anime> save(final Anime anime) {
-        return animeRepository.save(anime);
+        // a version makes Spring Data update instead of insert, it is always set by the database
+        return timed("save", animeRepository.save(anime.withVersion(null))
+                .flatMap(animeSaved -> TransactionCallbacks.afterCommit(() -> {
+                            animeCache.put(animeSaved);
+                            animeNameIndex.put(animeSaved);
+                        })
+                        .then(incrementVersion())
+                        .then(animeChangeStream.publish(AnimeChange.Type.CREATED, List.of(animeSaved)))
+                        .thenReturn(animeSaved)));
     }
 
+    /**
+     * Every anime is validated before the first row is written, so an invalid one does not roll back any work.
+     * The name index only gets the animes once the transaction is committed.
+     */
     @Transactional
-    public Flux<Anime> saveAll(List<Anime> animes) {
-        return animeRepository.saveAll(animes)
-                .doOnNext(this::throwResponseStatusExceptionWhenEmptyName);
+    public Flux<Anime> saveAll(final List<Anime> animes) {
+        return timed("saveAll", Flux.fromIterable(animes)
+                .doOnNext(this::throwResponseStatusExceptionWhenEmptyName)
+                .thenMany(Flux.defer(() -> animeRepository.insertAll(animes)))
+                .collectList()
+                .flatMapMany(animesSaved -> TransactionCallbacks.afterCommit(() -> animesSaved.forEach(animeNameIndex::put))
+                        .then(incrementVersion())
+                        .then(animeChangeStream.publish(AnimeChange.Type.CREATED, animesSaved))
+                        .thenMany(Flux.fromIterable(animesSaved))));
+    }
+
+    /**
+     * Validates the animes one by one as they arrive and inserts the valid ones in chunks,
+     * asking for more only when the previous chunk is written, so the memory used does not depend on the import size.
+     * Every chunk is committed on its own, invalid animes are skipped and reported in the summary.
+     * A value the decoder cannot read ends the import: the animes decoded before it are still inserted,
+     * and the summary reports it as the last rejection.
+     */
+    public Mono<ImportSummary> importAll(final Flux<Anime> animes) {
+        return timed("importAll", Mono.defer(() -> {
+            final AtomicLong read = new AtomicLong();
+            final ImportRejections rejections = new ImportRejections();
+
+            return importAll(animes
+                            .doOnNext(anime -> read.incrementAndGet())
+                            // the decoder cannot go on after a malformed value, ending the stream writes the chunks
+                            // read before it; the web layer wraps the decoding error in a 400
+                            .onErrorResume(e -> ExceptionUtils.indexOfType(e, DecodingException.class) >= 0, e -> {
+                                rejections.reject(read.get() + 1, "Malformed value, the rest of the body was not read");
+                                return Flux.empty();
+                            })
+                            .index(),
+                    rejections);
+        }));
     }
 
+    /**
+     * Same as importAll for newline delimited json, but every line is read on its own:
+     * a malformed line is skipped and reported like an invalid anime, the lines after it are still imported.
+     */
+    public Mono<ImportSummary> importLines(final Flux<String> lines) {
+        return timed("importLines", Mono.defer(() -> {
+            final ImportRejections rejections = new ImportRejections();
+
+            return importAll(lines
+                            .index()
+                            .filter(line -> StringUtils.isNotBlank(line.getT2()))
+                            .handle((line, sink) -> {
+                                try {
+                                    sink.next(Tuples.of(line.getT1(), objectMapper.readValue(line.getT2(), Anime.class)));
+                                } catch (JsonProcessingException e) {
+                                    rejections.reject(line.getT1() + 1, "Malformed JSON");
+                                }
+                            }),
+                    rejections);
+        }));
+    }
+
+    /**
+     * @param animes the animes with the index of their line
+     */
+    private Mono<ImportSummary> importAll(final Flux<Tuple2<Long, Anime>> animes, final ImportRejections rejections) {
+        return animes
+                .filter(line -> {
+                    if (StringUtils.isNotBlank(line.getT2().getName())) {
+                        return true;
+                    }
+                    rejections.reject(line.getT1() + 1, "Invalid Name");
+                    return false;
+                })
+                .map(Tuple2::getT2)
+                .buffer(animeProperties.getInsert().getChunkSize())
+                .concatMap(chunk -> animeRepository.insertAll(chunk)
+                        .collectList()
+                        .flatMap(animesSaved -> TransactionCallbacks.afterCommit(() -> animesSaved.forEach(animeNameIndex::put))
+                                .then(animeChangeStream.publish(AnimeChange.Type.CREATED, animesSaved))
+                                .thenReturn((long) animesSaved.size())))
+                .reduce(0L, Long::sum)
+                .flatMap(accepted -> accepted > 0 ? incrementVersion().thenReturn(accepted) : Mono.just(accepted))
+                .map(accepted -> ImportSummary.builder()
+                        .accepted(accepted)
+                        .rejected(rejections.count)
+                        .rejections(rejections.reported)
+                        .build());
+    }
+
+
+    /**
+     * A single UPDATE, without reading the anime first. When the anime has a version, the update only happens
+     * if it is still the version in the database, otherwise the answer is 409 (or 404 when the anime does not exist).
+     */
     public Mono<Void> update(final Anime anime) {
-        return findById(anime.getId())
-                .map(animeFound -> anime.withId(animeFound.getId()))
-                .flatMap(animeRepository::save)
-                .then();
+        if (anime.getVersion() == null) {
+            return timed("update", animeRepository.updateName(anime.getId(), anime.getName())
+                    .flatMap(updated -> updated > 0 ? afterUpdate(anime) : monoResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found")));
+        }
+        return timed("update", animeRepository.updateName(anime.getId(), anime.getName(), anime.getVersion())
+                .flatMap(updated -> updated > 0 ? afterUpdate(anime) : conflictOrNotFound(anime.getId())));
     }
 
     public Mono<Void> delete(final int id) {
-        return findById(id)
-                .flatMap(animeRepository::delete);
+        return timed("delete", animeRepository.deleteAnime(id)
+                .flatMap(deleted -> {
+                    if (deleted == 0) {
+                        return monoResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found");
+                    }
+                    animeCache.invalidate(id);
+                    animeNameIndex.remove(id);
+                    return incrementVersion()
+                            .then(animeChangeStream.publish(AnimeChange.Type.DELETED, List.of(Anime.builder().id(id).build())));
+                }));
+    }
+
+    /**
+     * Renames many animes at once, in one transaction: either every anime found is renamed or none is.
+     * Ids without anime are reported as not found, they do not fail the batch.
+     * The cache and the name index are only changed once the transaction is committed.
+     */
+    @Transactional
+    public Mono<BatchResult> updateAll(final List<Anime> animes) {
+        return timed("updateAll", Flux.fromIterable(animes)
+                .doOnNext(this::throwResponseStatusExceptionWhenEmptyName)
+                .doOnNext(anime -> {
+                    if (anime.getId() == null) {
+                        throw responseStatusException(HttpStatus.BAD_REQUEST, "Invalid Id");
+                    }
+                })
+                // the last rename of an id sent twice wins
+                .collectMap(Anime::getId, Function.identity(), LinkedHashMap::new)
+                .flatMap(animesById -> animeRepository.updateNames(new ArrayList<>(animesById.values()))
+                        .collect(Collectors.toSet())
+                        .flatMap(updated -> TransactionCallbacks.afterCommit(() -> updated.forEach(id -> {
+                                    animeCache.invalidate(id);
+                                    animeNameIndex.rename(animesById.get(id));
+                                }))
+                                .then(afterBatch(animesById.keySet(), updated, AnimeChange.Type.UPDATED, animesById::get)))));
+    }
+
+    /**
+     * Deletes the animes with the ids sent, or every anime whose name starts with the prefix, in one transaction.
+     */
+    @Transactional
+    public Mono<BatchResult> deleteAll(final BatchDelete batchDelete) {
+        final Mono<List<Integer>> ids;
+        if (batchDelete.getIds() != null && !batchDelete.getIds().isEmpty()) {
+            ids = Mono.just(batchDelete.getIds().stream().distinct().collect(Collectors.toList()));
+        } else if (StringUtils.isNotBlank(batchDelete.getNamePrefix())) {
+            final String from = AnimeNameIndex.normalize(batchDelete.getNamePrefix());
+            ids = animeRepository.findIdsByName(from, from + Character.MAX_VALUE).collectList();
+        } else {
+            return monoResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid batch, send the ids or a name prefix");
+        }
+        return timed("deleteAll", ids
+                .flatMap(requested -> animeRepository.deleteAllByIdIn(requested)
+                        .collect(Collectors.toSet())
+                        .flatMap(deleted -> TransactionCallbacks.afterCommit(() -> deleted.forEach(id -> {
+                                    animeCache.invalidate(id);
+                                    animeNameIndex.remove(id);
+                                }))
+                                .then(afterBatch(requested, deleted, AnimeChange.Type.DELETED, id -> Anime.builder().id(id).build())))));
+    }
+
+    private Mono<BatchResult> afterBatch(final Collection<Integer> requested, final Set<Integer> changed,
+                                         final AnimeChange.Type type, final Function<Integer, Anime> anime) {
+        final List<BatchResult.Item> items = requested.stream()
+                .map(id -> new BatchResult.Item(id, changed.contains(id) ? HttpStatus.OK.value() : HttpStatus.NOT_FOUND.value()))
+                .collect(Collectors.toList());
+        final BatchResult result = BatchResult.builder()
+                .succeeded(changed.size())
+                .notFound(requested.size() - changed.size())
+                .items(items)
+                .build();
+        if (changed.isEmpty()) {
+            return Mono.just(result);
+        }
+        final List<Anime> changes = changed.stream().map(anime).collect(Collectors.toList());
+        return incrementVersion()
+                .then(animeChangeStream.publish(type, changes))
+                .thenReturn(result);
+    }
+
+    private Mono<Void> afterUpdate(final Anime anime) {
+        animeCache.invalidate(anime.getId());
+        animeNameIndex.rename(anime);
+        final Anime animeUpdated = anime.withVersion(anime.getVersion() == null ? null : anime.getVersion() + 1);
+        return incrementVersion()
+                .then(animeChangeStream.publish(AnimeChange.Type.UPDATED, List.of(animeUpdated)));
+    }
+
+    /**
+     * Only read when a versioned update did not change any row, to tell the client why
+     */
+    private Mono<Void> conflictOrNotFound(final int id) {
+        return animeRepository.existsById(id)
+                .flatMap(exists -> exists
+                        ? monoResponseStatusException(HttpStatus.CONFLICT, "Anime was changed, read it again before updating it")
+                        : monoResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found"));
+    }
+
+    /**
+     * Always called after the write, so a listing read in between is tagged with the old version and read again later,
+     * instead of an old listing being tagged with the new version
+     */
+    private Mono<Void> incrementVersion() {
+        return Mono.defer(() -> animeRepository.incrementTableVersion()).then();
     }
 
     private void throwResponseStatusExceptionWhenEmptyName(final Anime anime) {
         if (StringUtils.isBlank(anime.getName())) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Name");
+            throw responseStatusException(HttpStatus.BAD_REQUEST, "Invalid Name");
         }
     }
 
+    private ResponseStatusException responseStatusException(final HttpStatus status, final String message) {
+        Metrics.counter(METRIC_NAME + ".errors", "status", String.valueOf(status.value())).increment();
+        return new StacklessResponseStatusException(status, message);
+    }
+
+    private static <T> Mono<T> timed(final String method, final Mono<T> mono) {
+        return mono.name(METRIC_NAME).tag("method", method).metrics();
+    }
+
+    private static <T> Flux<T> timed(final String method, final Flux<T> flux) {
+        return flux.name(METRIC_NAME).tag("method", method).metrics();
+    }
+
+    /**
+     * Rejected lines of an import, only the first ones are detailed in the summary
+     */
+    private static class ImportRejections {
+
+        private final List<ImportSummary.Rejection> reported = new ArrayList<>();
+
+        private long count;
+
+        void reject(final long line, final String reason) {
+            if (++count <= MAX_REJECTIONS_REPORTED) {
+                reported.add(new ImportSummary.Rejection(line, reason));
+            }
+        }
+    }
 }
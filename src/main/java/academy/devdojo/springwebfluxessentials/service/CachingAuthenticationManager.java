@@ -0,0 +1,88 @@
+package academy.devdojo.springwebfluxessentials.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Value;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+
+/**
+ * Remembers successful authentications for a short while, so a client sending the same basic credentials
+ * on every request pays the password check (bcrypt) only once per window.
+ * Only a salted SHA-256 digest of the password is kept in memory, never the password itself.
+ */
+public class CachingAuthenticationManager implements ReactiveAuthenticationManager {
+
+    private final ReactiveAuthenticationManager delegate;
+
+    private final Cache<String, VerifiedCredentials> verifiedCredentials;
+
+    private final byte[] salt = new byte[16];
+
+    public CachingAuthenticationManager(final ReactiveAuthenticationManager delegate, final long maximumSize, final Duration timeToLive) {
+        this.delegate = delegate;
+        this.verifiedCredentials = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .build();
+        new SecureRandom().nextBytes(salt);
+    }
+
+    @Override
+    public Mono<Authentication> authenticate(final Authentication authentication) {
+        final String username = authentication.getName();
+        final Object credentials = authentication.getCredentials();
+        if (!(credentials instanceof String)) {
+            return delegate.authenticate(authentication);
+        }
+
+        final byte[] digest = digest(username, (String) credentials);
+        final VerifiedCredentials verified = verifiedCredentials.getIfPresent(username);
+        if (verified != null && MessageDigest.isEqual(verified.getDigest(), digest)) {
+            return Mono.just(new UsernamePasswordAuthenticationToken(verified.getUser(), verified.getUser().getPassword(), verified.getUser().getAuthorities()));
+        }
+
+        return delegate.authenticate(authentication)
+                .doOnNext(result -> {
+                    if (result.getPrincipal() instanceof UserDetails) {
+                        verifiedCredentials.put(username, new VerifiedCredentials(digest, (UserDetails) result.getPrincipal()));
+                    }
+                });
+    }
+
+    public void invalidate(final String username) {
+        verifiedCredentials.invalidate(username);
+    }
+
+    public void invalidateAll() {
+        verifiedCredentials.invalidateAll();
+    }
+
+    private byte[] digest(final String username, final String password) {
+        try {
+            final MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            messageDigest.update(salt);
+            messageDigest.update(username.getBytes(StandardCharsets.UTF_8));
+            messageDigest.update((byte) 0);
+            messageDigest.update(password.getBytes(StandardCharsets.UTF_8));
+            return messageDigest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Value
+    private static class VerifiedCredentials {
+        byte[] digest;
+        UserDetails user;
+    }
+}
@@ -0,0 +1,29 @@
+package academy.devdojo.springwebfluxessentials.service;
+
+import academy.devdojo.springwebfluxessentials.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.r2dbc.mapping.event.AfterSaveCallback;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Forgets the cached user and its verified credentials as soon as the user is saved,
+ * so a new password or new authorities are used by the very next request. The deletes are in UserDeletePostProcessor.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserChangeCallback implements AfterSaveCallback<User> {
+
+    private final UserDetailsService userDetailsService;
+    private final CachingAuthenticationManager cachingAuthenticationManager;
+
+    @Override
+    public Publisher<User> onAfterSave(final User user, final OutboundRow outboundRow, final SqlIdentifier table) {
+        userDetailsService.evict(user.getUsername());
+        cachingAuthenticationManager.invalidate(user.getUsername());
+        return Mono.just(user);
+    }
+}
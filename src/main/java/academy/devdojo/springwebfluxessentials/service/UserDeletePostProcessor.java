@@ -0,0 +1,78 @@
+package academy.devdojo.springwebfluxessentials.service;
+
+import academy.devdojo.springwebfluxessentials.entity.User;
+import academy.devdojo.springwebfluxessentials.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Counterpart of UserChangeCallback for the deletes, which Spring Data R2DBC has no callback for: once a delete
+ * of UserRepository is committed, the deleted users and their verified credentials are forgotten.
+ * Deleting by id or deleting every user does not tell which users are gone, so every user is forgotten.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserDeletePostProcessor implements BeanPostProcessor {
+
+    // looked up on the first delete, a BeanPostProcessor must not create beans that need the repositories
+    private final ObjectProvider<UserDetailsService> userDetailsService;
+    private final ObjectProvider<CachingAuthenticationManager> cachingAuthenticationManager;
+
+    @Override
+    public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+        if (bean instanceof UserRepository && bean instanceof Advised && !((Advised) bean).isFrozen()) {
+            // first, the last interceptor of Spring Data calls the repository without calling the next ones
+            ((Advised) bean).addAdvice(0, evictOnDelete());
+        }
+        return bean;
+    }
+
+    private MethodInterceptor evictOnDelete() {
+        return invocation -> {
+            final Object result = invocation.proceed();
+            if (!invocation.getMethod().getName().startsWith("delete") || !(result instanceof Mono)) {
+                return result;
+            }
+            // the deletes of ReactiveCrudRepository are all Mono<Void>
+            final List<String> usernames = usernames(invocation.getArguments());
+            return ((Mono<?>) result).then(TransactionCallbacks.afterCommit(() -> evict(usernames)));
+        };
+    }
+
+    /**
+     * @return the usernames of the users given to delete, null when they are not known
+     */
+    private static List<String> usernames(final Object[] arguments) {
+        if (arguments.length == 1 && arguments[0] instanceof User) {
+            return Arrays.asList(((User) arguments[0]).getUsername());
+        }
+        if (arguments.length == 1 && arguments[0] instanceof Iterable) {
+            return StreamSupport.stream(((Iterable<?>) arguments[0]).spliterator(), false)
+                    .map(user -> ((User) user).getUsername())
+                    .collect(Collectors.toList());
+        }
+        return null;
+    }
+
+    private void evict(final List<String> usernames) {
+        if (usernames == null) {
+            userDetailsService.getObject().evictAll();
+            cachingAuthenticationManager.getObject().invalidateAll();
+            return;
+        }
+        for (final String username : usernames) {
+            userDetailsService.getObject().evict(username);
+            cachingAuthenticationManager.getObject().invalidate(username);
+        }
+    }
+}
@@ -1,21 +1,47 @@
 package academy.devdojo.springwebfluxessentials.service;
 
+import academy.devdojo.springwebfluxessentials.configuration.AnimeProperties;
 import academy.devdojo.springwebfluxessentials.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+import java.util.function.Function;
+
+/**
+ * Users are cached for a while after being read, so authenticating a request does not need a query every time.
+ */
 @Service
-@RequiredArgsConstructor
 public class UserDetailsService implements ReactiveUserDetailsService {
 
     private final UserRepository userRepository;
 
+    private final AsyncCache<String, UserDetails> users;
+
+    public UserDetailsService(final UserRepository userRepository, final AnimeProperties animeProperties) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(animeProperties.getSecurity().getMaximumSize())
+                .expireAfterWrite(animeProperties.getSecurity().getUserTimeToLive())
+                .buildAsync();
+    }
+
     @Override
     public Mono<UserDetails> findByUsername(final String username) {
-        return userRepository.findByUsername(username)
-                .cast(UserDetails.class);
+        return Mono.defer(() -> Mono.fromFuture(users.get(username, (key, executor) -> userRepository.findByUsername(key)
+                .cast(UserDetails.class)
+                .toFuture())
+                .thenApply(Function.identity())));
+    }
+
+    public void evict(final String username) {
+        users.synchronous().invalidate(username);
+    }
+
+    public void evictAll() {
+        users.synchronous().invalidateAll();
     }
 }
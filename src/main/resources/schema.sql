@@ -1,4 +1,6 @@
-DROP TABLE IF EXISTS ANIME;
-DROP TABLE IF EXISTS USER;
-CREATE TABLE ANIME (ID INT IDENTITY PRIMARY KEY, NAME VARCHAR(255));
-CREATE TABLE USER (ID INT IDENTITY PRIMARY KEY, NAME VARCHAR(255), USERNAME VARCHAR(255), PASSWORD VARCHAR(255), AUTHORITIES VARCHAR(255));
\ No newline at end of file
+CREATE TABLE IF NOT EXISTS ANIME (ID INT IDENTITY PRIMARY KEY, NAME VARCHAR(255), VERSION INT DEFAULT 0 NOT NULL, NAME_LOWER VARCHAR(255) AS LOWER(NAME));
+CREATE INDEX IF NOT EXISTS ANIME_NAME_LOWER ON ANIME (NAME_LOWER);
+CREATE TABLE IF NOT EXISTS USER (ID INT IDENTITY PRIMARY KEY, NAME VARCHAR(255), USERNAME VARCHAR(255), PASSWORD VARCHAR(255), AUTHORITIES VARCHAR(255));
+-- starts at the current time in millis, so a version is never reused with other data after a restart
+CREATE TABLE IF NOT EXISTS ANIME_TABLE_VERSION (ID INT PRIMARY KEY, VERSION BIGINT NOT NULL);
+INSERT INTO ANIME_TABLE_VERSION (ID, VERSION) SELECT 1, DATEDIFF('MILLISECOND', TIMESTAMP '1970-01-01 00:00:00', CURRENT_TIMESTAMP) FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM ANIME_TABLE_VERSION WHERE ID = 1);
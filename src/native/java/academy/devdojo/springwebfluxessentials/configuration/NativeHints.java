@@ -0,0 +1,49 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import academy.devdojo.springwebfluxessentials.dto.AnimeChange;
+import academy.devdojo.springwebfluxessentials.dto.AnimePage;
+import academy.devdojo.springwebfluxessentials.dto.BatchDelete;
+import academy.devdojo.springwebfluxessentials.dto.BatchResult;
+import academy.devdojo.springwebfluxessentials.dto.ImportSummary;
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import academy.devdojo.springwebfluxessentials.entity.Authorities;
+import academy.devdojo.springwebfluxessentials.entity.User;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.nativex.hint.AccessBits;
+import org.springframework.nativex.hint.NativeHint;
+import org.springframework.nativex.hint.ResourceHint;
+import org.springframework.nativex.hint.TypeHint;
+
+/**
+ * What the native image cannot find by itself: the classes Jackson and Spring Data build by reflection
+ * (with the Lombok builders and withers), the classes Caffeine loads by name for the cache settings used here,
+ * schema.sql and the swagger-ui files springdoc serves. Only compiled and read by the AOT build (-Pnative).
+ */
+@NativeHint(
+        types = {
+                @TypeHint(types = {
+                        Anime.class, Anime.AnimeBuilder.class,
+                        User.class, User.UserBuilder.class,
+                        Authorities.class,
+                        AnimePage.class, AnimeChange.class, AnimeChange.Type.class,
+                        BatchDelete.class, BatchResult.class, BatchResult.Item.class,
+                        ImportSummary.class, ImportSummary.Rejection.class
+                }, access = AccessBits.ALL),
+                // maximumSize + expireAfterWrite, with and without recordStats
+                @TypeHint(typeNames = {
+                        "com.github.benmanes.caffeine.cache.SSMSW",
+                        "com.github.benmanes.caffeine.cache.SSSMSW",
+                        "com.github.benmanes.caffeine.cache.PSWMS",
+                        // maximumSize alone, the serialized error bodies
+                        "com.github.benmanes.caffeine.cache.SSMS",
+                        "com.github.benmanes.caffeine.cache.PSMS"
+                }, access = AccessBits.LOAD_AND_CONSTRUCT)
+        },
+        resources = @ResourceHint(patterns = {
+                "schema.sql",
+                "META-INF/resources/webjars/.*",
+                "META-INF/maven/org.webjars/swagger-ui/pom.properties"
+        }))
+@Configuration(proxyBeanMethods = false)
+public class NativeHints {
+}
@@ -0,0 +1,25 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+class DiagnosticFlagsTest {
+
+    private DiagnosticFlags parse(final String uri) {
+        return DiagnosticFlags.parse(MockServerHttpRequest.get(uri).build().getQueryParams());
+    }
+
+    @Test
+    @DisplayName("Parse reads every flag set to true")
+    public void parse_ReturnFlags_whenFlagsAreTrue() {
+        Assertions.assertEquals(new DiagnosticFlags(true, true, false), parse("/animes/1?trace=true&timing=TRUE&explain=false"));
+    }
+
+    @Test
+    @DisplayName("Parse ignores the parameters that only end with a flag name")
+    public void parse_ReturnNone_whenParameterOnlyEndsWithFlagName() {
+        Assertions.assertSame(DiagnosticFlags.NONE, parse("/animes/1?xtrace=true&notiming=true"));
+    }
+}
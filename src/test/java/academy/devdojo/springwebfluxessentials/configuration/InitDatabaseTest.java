@@ -0,0 +1,179 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import academy.devdojo.springwebfluxessentials.entity.User;
+import academy.devdojo.springwebfluxessentials.repository.AnimeRepository;
+import academy.devdojo.springwebfluxessentials.repository.UserRepository;
+import academy.devdojo.springwebfluxessentials.service.AnimeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+@ExtendWith(SpringExtension.class)
+class InitDatabaseTest {
+
+    @InjectMocks
+    private InitDatabase initDatabase;
+
+    @Mock
+    private AnimeService animeService;
+
+    @Mock
+    private AnimeRepository animeRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Spy
+    private AnimeProperties animeProperties = new AnimeProperties();
+
+    // like the one of Spring Boot, which reads the animes with the names of the constructor parameters
+    @Spy
+    private ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new ParameterNamesModule())
+            .build();
+
+    @BeforeEach
+    public void setup() {
+        BDDMockito.when(animeService.saveAll(ArgumentMatchers.anyList()))
+                .thenReturn(Flux.just(Anime.builder().id(1).name("Full Metal").build()));
+
+        BDDMockito.when(userRepository.saveAll(ArgumentMatchers.<Iterable<User>>any()))
+                .thenReturn(Flux.empty());
+    }
+
+    @Test
+    @DisplayName("readAnimes reads one anime per line of a CSV file, skipping the header")
+    public void readAnimes_ReturnFluxOfAnime_whenFileIsCsv() {
+        final Resource file = resource("animes.csv", "name\nFull Metal\n\"Hellsing, Ultimate\"\n\"The \"\"Big\"\" O\"\n");
+
+        StepVerifier.create(initDatabase.readAnimes(file).map(Anime::getName))
+                .expectSubscription()
+                .expectNext("Full Metal", "Hellsing, Ultimate", "The \"Big\" O")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("readAnimes reads one anime per line of an NDJSON file")
+    public void readAnimes_ReturnFluxOfAnime_whenFileIsNdjson() {
+        final Resource file = resource("animes.ndjson", "{\"name\":\"Full Metal\"}\n{\"name\":\"Hellsing\"}\n");
+
+        StepVerifier.create(initDatabase.readAnimes(file).map(Anime::getName))
+                .expectSubscription()
+                .expectNext("Full Metal", "Hellsing")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("unquote removes the quotes around a CSV field and the doubled quotes inside it")
+    public void unquote_ReturnName_whenFieldIsQuoted() {
+        Assertions.assertEquals("Full Metal", InitDatabase.unquote("Full Metal"));
+        Assertions.assertEquals("Full Metal", InitDatabase.unquote("\"Full Metal\""));
+        Assertions.assertEquals("The \"Big\" O", InitDatabase.unquote("\"The \"\"Big\"\" O\""));
+        Assertions.assertEquals("\"", InitDatabase.unquote("\""));
+    }
+
+    @Test
+    @DisplayName("run seeds the animes and the users when the tables are empty")
+    public void run_SeedsAnimesAndUsers_whenTablesAreEmpty() {
+        BDDMockito.when(animeRepository.count()).thenReturn(Mono.just(0L));
+        BDDMockito.when(userRepository.count()).thenReturn(Mono.just(0L));
+
+        initDatabase.run(null);
+
+        StepVerifier.create(initDatabase.seeded())
+                .expectSubscription()
+                .verifyComplete();
+
+        BDDMockito.verify(animeService).saveAll(ArgumentMatchers.anyList());
+        BDDMockito.verify(userRepository).saveAll(ArgumentMatchers.<Iterable<User>>any());
+    }
+
+    @Test
+    @DisplayName("run inserts nothing when the tables were already seeded")
+    public void run_InsertsNothing_whenTablesAreNotEmpty() {
+        BDDMockito.when(animeRepository.count()).thenReturn(Mono.just(4L));
+        BDDMockito.when(userRepository.count()).thenReturn(Mono.just(2L));
+
+        initDatabase.run(null);
+
+        StepVerifier.create(initDatabase.seeded())
+                .expectSubscription()
+                .verifyComplete();
+
+        BDDMockito.verify(animeService, Mockito.never()).saveAll(ArgumentMatchers.anyList());
+        BDDMockito.verify(animeService, Mockito.never()).importAll(ArgumentMatchers.any());
+        BDDMockito.verify(userRepository, Mockito.never()).saveAll(ArgumentMatchers.<Iterable<User>>any());
+    }
+
+    @Test
+    @DisplayName("run does not read the database when the seeding is disabled")
+    public void run_DoesNothing_whenSeedIsDisabled() {
+        animeProperties.getSeed().setEnabled(false);
+
+        initDatabase.run(null);
+
+        StepVerifier.create(initDatabase.seeded())
+                .expectSubscription()
+                .verifyComplete();
+
+        Mockito.verifyNoInteractions(animeService, animeRepository, userRepository);
+    }
+
+    @Test
+    @DisplayName("schema.sql can run again on an existing database without changing it")
+    public void schema_KeepsTablesAndVersion_whenRunTwice() {
+        final ConnectionFactory connectionFactory = ConnectionFactories.get("r2dbc:h2:mem:///init-database-test?options=DB_CLOSE_DELAY=-1");
+        final ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"));
+        final DatabaseClient client = DatabaseClient.create(connectionFactory);
+
+        populator.populate(connectionFactory).block(Duration.ofSeconds(10));
+        client.sql("INSERT INTO ANIME (NAME) VALUES ('Full Metal')").fetch().rowsUpdated().block(Duration.ofSeconds(10));
+        final Long version = client.sql("SELECT VERSION FROM ANIME_TABLE_VERSION").map(row -> row.get("VERSION", Long.class)).one().block(Duration.ofSeconds(10));
+
+        populator.populate(connectionFactory).block(Duration.ofSeconds(10));
+
+        StepVerifier.create(client.sql("SELECT VERSION FROM ANIME_TABLE_VERSION").map(row -> row.get("VERSION", Long.class)).all())
+                .expectSubscription()
+                .expectNext(version)
+                .verifyComplete();
+        StepVerifier.create(client.sql("SELECT COUNT(*) AS ANIMES FROM ANIME").map(row -> row.get("ANIMES", Long.class)).one())
+                .expectSubscription()
+                .expectNext(1L)
+                .verifyComplete();
+    }
+
+    private static Resource resource(final String filename, final String content) {
+        return new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import academy.devdojo.springwebfluxessentials.entity.Authorities;
+import academy.devdojo.springwebfluxessentials.entity.User;
+import academy.devdojo.springwebfluxessentials.service.UserDetailsService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingOperationError;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * bcrypt is marked as blocking, so BlockHound fails the test if a password is checked on a non-blocking thread.
+ */
+@Tag("blockhound")
+class SecurityConfigBlockHoundTest {
+
+    private final UserDetailsService userDetailsService = Mockito.mock(UserDetailsService.class);
+
+    private final SecurityConfig securityConfig = new SecurityConfig();
+
+    private final User user = User.builder().id(1).name("Capitao Desumano").username("cavalo")
+            .password("{bcrypt}$2a$10$B4JueaV/LHpVKSgw2skZteqT1m4OKIF8D6E/Vp1lqqJAl1xbZlyv.").authorities(Authorities.parse("ROLE_ADMIN,ROLE_USER")).build();
+
+    @BeforeAll
+    public static void blockHoundSetup() {
+        BlockHound.install(builder -> builder
+                .allowBlockingCallsInside("java.util.UUID", "randomUUID")
+                .markAsBlocking(BCryptPasswordEncoder.class, "matches", "(Ljava/lang/CharSequence;Ljava/lang/String;)Z"));
+    }
+
+    @BeforeEach
+    public void setup() {
+        BDDMockito.when(userDetailsService.findByUsername("cavalo"))
+                .thenReturn(Mono.just(user));
+    }
+
+    @Test
+    public void blockHoundWorks() {
+        try {
+            FutureTask<?> task = new FutureTask<>(() -> {
+                Thread.sleep(0);
+                return "";
+            });
+            Schedulers.parallel().schedule(task);
+
+            task.get(10, TimeUnit.SECONDS);
+            Assertions.fail("should fail");
+        } catch (Exception e) {
+            Assertions.assertTrue(e.getCause() instanceof BlockingOperationError);
+        }
+    }
+
+    @Test
+    @DisplayName("Authenticate does not check the password on the non-blocking thread that asked for it")
+    public void authenticate_DoesNotBlock_whenCalledFromNonBlockingThread() {
+        final Scheduler scheduler = securityConfig.authenticationScheduler(new AnimeProperties());
+        final ReactiveAuthenticationManager authenticationManager =
+                securityConfig.reactiveAuthenticationManager(userDetailsService, new AnimeProperties(), scheduler);
+
+        StepVerifier.create(authenticationManager.authenticate(new UsernamePasswordAuthenticationToken("cavalo", "cansado"))
+                .subscribeOn(Schedulers.parallel()))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        scheduler.dispose();
+    }
+
+    @Test
+    @DisplayName("BlockHound catches a password checked on a non-blocking thread")
+    public void authenticate_Blocks_whenPasswordCheckedOnNonBlockingThread() {
+        final ReactiveAuthenticationManager authenticationManager =
+                securityConfig.reactiveAuthenticationManager(userDetailsService, new AnimeProperties(), Schedulers.immediate());
+
+        StepVerifier.create(authenticationManager.authenticate(new UsernamePasswordAuthenticationToken("cavalo", "cansado"))
+                .subscribeOn(Schedulers.parallel()))
+                .expectError(BlockingOperationError.class)
+                .verify();
+    }
+}
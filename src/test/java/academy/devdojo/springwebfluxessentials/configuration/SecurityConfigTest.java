@@ -0,0 +1,89 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import academy.devdojo.springwebfluxessentials.entity.Authorities;
+import academy.devdojo.springwebfluxessentials.entity.User;
+import academy.devdojo.springwebfluxessentials.service.UserDetailsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class SecurityConfigTest {
+
+    private final UserDetailsService userDetailsService = Mockito.mock(UserDetailsService.class);
+
+    private final SecurityConfig securityConfig = new SecurityConfig();
+
+    private final User user = User.builder().id(1).name("Capitao Desumano").username("cavalo")
+            .password("{bcrypt}$2a$10$B4JueaV/LHpVKSgw2skZteqT1m4OKIF8D6E/Vp1lqqJAl1xbZlyv.").authorities(Authorities.parse("ROLE_ADMIN,ROLE_USER")).build();
+
+    @BeforeEach
+    public void setup() {
+        BDDMockito.when(userDetailsService.findByUsername("cavalo"))
+                .thenReturn(Mono.just(user));
+    }
+
+    @Test
+    @DisplayName("Authenticate checks the password on the authentication scheduler")
+    public void authenticate_ChecksPasswordOnAuthenticationScheduler_whenSuccessful() {
+        final Scheduler scheduler = securityConfig.authenticationScheduler(new AnimeProperties());
+        final ReactiveAuthenticationManager authenticationManager =
+                securityConfig.reactiveAuthenticationManager(userDetailsService, new AnimeProperties(), scheduler);
+
+        StepVerifier.create(authenticationManager.authenticate(new UsernamePasswordAuthenticationToken("cavalo", "cansado"))
+                .map(authentication -> Thread.currentThread().getName()))
+                .expectNextMatches(threadName -> threadName.startsWith("authentication"))
+                .verifyComplete();
+
+        scheduler.dispose();
+    }
+
+    @Test
+    @DisplayName("Authenticate returns 503 when the authentication scheduler queue is full")
+    public void authenticate_ReturnsServiceUnavailable_whenSchedulerQueueIsFull() throws InterruptedException {
+        final AnimeProperties animeProperties = new AnimeProperties();
+        animeProperties.getSecurity().setSchedulerThreads(1);
+        animeProperties.getSecurity().setSchedulerQueueSize(1);
+        final Scheduler scheduler = securityConfig.authenticationScheduler(animeProperties);
+        final ReactiveAuthenticationManager authenticationManager =
+                securityConfig.reactiveAuthenticationManager(userDetailsService, animeProperties, scheduler);
+
+        // the only thread is busy and the queue holds one waiting task
+        final CountDownLatch busy = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        scheduler.schedule(() -> {
+            busy.countDown();
+            awaitQuietly(release);
+        });
+        busy.await(5, TimeUnit.SECONDS);
+        scheduler.schedule(() -> {
+        });
+
+        StepVerifier.create(authenticationManager.authenticate(new UsernamePasswordAuthenticationToken("cavalo", "cansado")))
+                .expectErrorMatches(error -> error instanceof ResponseStatusException
+                        && ((ResponseStatusException) error).getStatus() == HttpStatus.SERVICE_UNAVAILABLE)
+                .verify();
+
+        release.countDown();
+        scheduler.dispose();
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package academy.devdojo.springwebfluxessentials.configuration;
+
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+class StreamingJackson2CborEncoderTest {
+
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor()
+            .modulesToInstall(new ParameterNamesModule())
+            .build();
+
+    private final StreamingJackson2CborEncoder encoder = new StreamingJackson2CborEncoder(cborMapper);
+
+    private final Anime fullMetal = Anime.builder().id(1).name("Full Metal").version(0).build();
+
+    private final Anime hellsing = Anime.builder().id(2).name("Hellsing").version(0).build();
+
+    @Test
+    @DisplayName("Encode writes a Flux as an indefinite length CBOR array")
+    public void encode_ReturnsCborArray_whenFlux() throws IOException {
+        final byte[] cbor = DataBufferUtils.join(encode(Flux.just(fullMetal, hellsing)))
+                .map(buffer -> {
+                    final byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .block();
+
+        Assertions.assertNotNull(cbor);
+        Assertions.assertEquals((byte) 0x9F, cbor[0]);
+        Assertions.assertEquals((byte) 0xFF, cbor[cbor.length - 1]);
+        Assertions.assertEquals(List.of(fullMetal, hellsing), cborMapper.readValue(cbor, new TypeReference<List<Anime>>() {
+        }));
+    }
+
+    @Test
+    @DisplayName("Encode writes every element as soon as it is emitted, before the Flux completes")
+    public void encode_WritesElements_whenFluxIsNotComplete() {
+        StepVerifier.create(encode(Flux.just(fullMetal, hellsing).concatWith(Flux.never())))
+                .expectSubscription()
+                .expectNextCount(3)
+                .thenCancel()
+                .verify();
+    }
+
+    private Flux<DataBuffer> encode(final Flux<Anime> animes) {
+        return encoder.encode(animes, new DefaultDataBufferFactory(), ResolvableType.forClass(Anime.class),
+                MediaType.APPLICATION_CBOR, Collections.emptyMap());
+    }
+}
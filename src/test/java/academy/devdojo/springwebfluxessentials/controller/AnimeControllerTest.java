@@ -1,13 +1,24 @@
 package academy.devdojo.springwebfluxessentials.controller;
 
+import academy.devdojo.springwebfluxessentials.dto.AnimeChange;
+import academy.devdojo.springwebfluxessentials.dto.AnimePage;
+import academy.devdojo.springwebfluxessentials.dto.BatchDelete;
+import academy.devdojo.springwebfluxessentials.dto.BatchResult;
+import academy.devdojo.springwebfluxessentials.dto.ImportSummary;
 import academy.devdojo.springwebfluxessentials.entity.Anime;
+import academy.devdojo.springwebfluxessentials.service.AnimeChangeStream;
 import academy.devdojo.springwebfluxessentials.service.AnimeService;
 import academy.devdojo.springwebfluxessentials.util.AnimeCreator;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import reactor.blockhound.BlockingOperationError;
 import reactor.core.publisher.Flux;
@@ -40,6 +51,21 @@ class AnimeControllerTest {
         BDDMockito.when(animeService.findAll())
                 .thenReturn(Flux.just(anime));
 
+        BDDMockito.when(animeService.findVersion())
+                .thenReturn(Mono.just(42L));
+
+        BDDMockito.when(animeService.streamAll())
+                .thenReturn(Flux.just(anime));
+
+        BDDMockito.when(animeService.findPage(0, 10))
+                .thenReturn(Mono.just(AnimePage.builder().content(List.of(anime)).build()));
+
+        BDDMockito.when(animeService.search("ten", 20))
+                .thenReturn(Flux.just(anime));
+
+        BDDMockito.when(animeService.changes(42L, AnimeChangeStream.Overflow.BUFFER))
+                .thenReturn(Flux.just(new AnimeChange(43L, AnimeChange.Type.CREATED, anime)));
+
         BDDMockito.when(animeService.findById(1))
                 .thenReturn(Mono.just(anime));
 
@@ -49,6 +75,18 @@ class AnimeControllerTest {
         BDDMockito.when(animeService.saveAll(List.of(AnimeCreator.createAnimeToBeSaved(), AnimeCreator.createAnimeToBeSaved())))
                 .thenReturn(Flux.just(anime, anime));
 
+        BDDMockito.when(animeService.importAll(ArgumentMatchers.any()))
+                .thenReturn(Mono.just(ImportSummary.builder().accepted(2).build()));
+
+        BDDMockito.when(animeService.importLines(ArgumentMatchers.any()))
+                .thenReturn(Mono.just(ImportSummary.builder().accepted(2).build()));
+
+        BDDMockito.when(animeService.updateAll(List.of(AnimeCreator.createValidUpdateAnime())))
+                .thenReturn(Mono.just(BatchResult.builder().succeeded(1).build()));
+
+        BDDMockito.when(animeService.deleteAll(BatchDelete.builder().ids(List.of(1)).build()))
+                .thenReturn(Mono.just(BatchResult.builder().succeeded(1).build()));
+
         BDDMockito.when(animeService.delete(1))
                 .thenReturn(Mono.empty());
 
@@ -78,7 +116,55 @@ class AnimeControllerTest {
     @Test
     @DisplayName("ListAll returns a flux of anime")
     public void listAll_ReturnFluxOfAnime_whenSuccessful() {
-        StepVerifier.create(animeController.listAll())
+        StepVerifier.create(animeController.listAll(MockServerWebExchange.from(MockServerHttpRequest.get("/animes")))
+                .flatMapMany(response -> {
+                    Assertions.assertEquals("\"2a\"", response.getHeaders().getETag());
+                    return response.getBody();
+                }))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("ListAll returns not modified without reading the animes when the version did not change")
+    public void listAll_ReturnNotModified_whenETagMatches() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/animes")
+                .ifNoneMatch("\"2a\""));
+
+        StepVerifier.create(animeController.listAll(exchange))
+                .expectSubscription()
+                .assertNext(response -> {
+                    Assertions.assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+                    Assertions.assertNull(response.getBody());
+                })
+                .verifyComplete();
+
+        BDDMockito.verify(animeService, Mockito.never()).findAll();
+    }
+
+    @Test
+    @DisplayName("StreamAll returns a flux of anime")
+    public void streamAll_ReturnFluxOfAnime_whenSuccessful() {
+        StepVerifier.create(animeController.streamAll())
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("ListPage returns a page of anime")
+    public void listPage_ReturnMonoOfAnimePage_whenSuccessful() {
+        StepVerifier.create(animeController.listPage(0, 10))
+                .expectSubscription()
+                .expectNext(AnimePage.builder().content(List.of(anime)).build())
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Search returns a flux of anime")
+    public void search_ReturnFluxOfAnime_whenSuccessful() {
+        StepVerifier.create(animeController.search("ten", 20))
                 .expectSubscription()
                 .expectNext(anime)
                 .verifyComplete();
@@ -89,7 +175,10 @@ class AnimeControllerTest {
     public void findById_ReturnMonoOfAnime_whenSuccessful() {
         StepVerifier.create(animeController.findById(1))
                 .expectSubscription()
-                .expectNext(anime)
+                .assertNext(response -> {
+                    Assertions.assertEquals(anime, response.getBody());
+                    Assertions.assertNotNull(response.getHeaders().getETag());
+                })
                 .verifyComplete();
     }
 
@@ -113,6 +202,56 @@ class AnimeControllerTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("ImportLines returns the summary of the import")
+    public void importLines_ReturnsSummary_whenSuccessful() {
+        StepVerifier.create(animeController.importLines(Flux.just("{\"name\":\"Tensei Shitara\"}", "{\"name\":\"Tensei Shitara\"}")))
+                .expectSubscription()
+                .expectNext(ImportSummary.builder().accepted(2).build())
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("ImportAnimes returns the summary of the import")
+    public void importAnimes_ReturnsSummary_whenSuccessful() {
+        final Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
+        StepVerifier.create(animeController.importAnimes(Flux.just(animeToBeSaved, animeToBeSaved)))
+                .expectSubscription()
+                .expectNext(ImportSummary.builder().accepted(2).build())
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Changes returns the changes as server sent events with their sequence as id")
+    public void changes_ReturnFluxOfServerSentEvent_whenSuccessful() {
+        StepVerifier.create(animeController.changes(null, 42L, AnimeChangeStream.Overflow.BUFFER))
+                .expectSubscription()
+                .assertNext(event -> {
+                    Assertions.assertEquals("43", event.id());
+                    Assertions.assertEquals("CREATED", event.event());
+                    Assertions.assertEquals(anime, event.data().getAnime());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("UpdateBatch returns the result of the batch")
+    public void updateBatch_ReturnsBatchResult_whenSuccessful() {
+        StepVerifier.create(animeController.updateBatch(List.of(AnimeCreator.createValidUpdateAnime())))
+                .expectSubscription()
+                .expectNext(BatchResult.builder().succeeded(1).build())
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("DeleteBatch returns the result of the batch")
+    public void deleteBatch_ReturnsBatchResult_whenSuccessful() {
+        StepVerifier.create(animeController.deleteBatch(BatchDelete.builder().ids(List.of(1)).build()))
+                .expectSubscription()
+                .expectNext(BatchResult.builder().succeeded(1).build())
+                .verifyComplete();
+    }
+
     @Test
     @DisplayName("Delete removes the anime when successful")
     public void delete_RemovesAnime_whenSuccessful() {
@@ -0,0 +1,47 @@
+package academy.devdojo.springwebfluxessentials.entity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+class AuthoritiesTest {
+
+    @Test
+    @DisplayName("Parse returns the authorities of the comma separated value in the same order")
+    public void parse_ReturnsAuthorities_whenCommaSeparated() {
+        final Authorities authorities = Authorities.parse("ROLE_ADMIN,ROLE_USER");
+
+        Assertions.assertEquals(List.of(new SimpleGrantedAuthority("ROLE_ADMIN"), new SimpleGrantedAuthority("ROLE_USER")),
+                List.copyOf(authorities.getGrantedAuthorities()));
+        Assertions.assertEquals("ROLE_ADMIN,ROLE_USER", authorities.toString());
+    }
+
+    @Test
+    @DisplayName("Parse shares the same instances between users with the same roles")
+    public void parse_ReturnsSameInstance_whenSameValue() {
+        final Authorities admin = Authorities.parse("ROLE_ADMIN,ROLE_USER");
+        final Authorities user = Authorities.parse("ROLE_USER");
+
+        Assertions.assertSame(admin, Authorities.parse("ROLE_ADMIN,ROLE_USER"));
+        final GrantedAuthority roleUserOfAdmin = List.copyOf(admin.getGrantedAuthorities()).get(1);
+        Assertions.assertSame(roleUserOfAdmin, user.getGrantedAuthorities().iterator().next());
+    }
+
+    @Test
+    @DisplayName("GetAuthorities of a user returns the same collection on every call")
+    public void getAuthorities_ReturnsSameCollection_whenCalledTwice() {
+        final User user = User.builder().username("thacigod").authorities(Authorities.parse("ROLE_USER")).build();
+
+        Assertions.assertSame(user.getAuthorities(), user.getAuthorities());
+    }
+
+    @Test
+    @DisplayName("Parse returns no authority when the value is empty")
+    public void parse_ReturnsEmpty_whenValueIsNull() {
+        Assertions.assertTrue(Authorities.parse(null).getGrantedAuthorities().isEmpty());
+    }
+}
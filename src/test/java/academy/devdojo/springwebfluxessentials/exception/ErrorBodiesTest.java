@@ -0,0 +1,76 @@
+package academy.devdojo.springwebfluxessentials.exception;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.Date;
+
+class ErrorBodiesTest {
+
+    // what Spring Boot builds: dates written as ISO-8601 strings
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private final ErrorBodies errorBodies = new ErrorBodies(objectMapper);
+
+    @Test
+    @DisplayName("Render writes the same attributes as CustomAttributes")
+    public void render_ReturnsErrorAttributes_whenResponseStatusException() throws IOException {
+        final StacklessResponseStatusException exception = new StacklessResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found");
+
+        errorBodies.render(exception, "/animes/1", "a");
+        final JsonNode body = objectMapper.readTree(errorBodies.render(exception, "/animes/\"99\"", "b"));
+
+        Assertions.assertEquals(404, body.get("status").asInt());
+        Assertions.assertEquals("Not Found", body.get("error").asText());
+        Assertions.assertEquals(exception.getMessage(), body.get("message").asText());
+        Assertions.assertEquals(CustomAttributes.DEVELOPER_MESSAGE, body.get("developerMessage").asText());
+        Assertions.assertEquals("/animes/\"99\"", body.get("path").asText());
+        Assertions.assertEquals("b", body.get("requestId").asText());
+        Assertions.assertNotNull(objectMapper.treeToValue(body.get("timestamp"), Date.class));
+    }
+
+    @Test
+    @DisplayName("Render writes the timestamp like DefaultErrorAttributes, a Date written by the ObjectMapper")
+    public void render_WritesTimestampAsDate_whenObjectMapperWritesIsoDates() throws IOException {
+        final JsonNode body = objectMapper.readTree(errorBodies.render(
+                new StacklessResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found"), "/animes/1", "a"));
+
+        Assertions.assertTrue(body.get("timestamp").isTextual());
+        Assertions.assertTrue(body.get("timestamp").asText().matches("\\d{4}-\\d{2}-\\d{2}T.*\\+00:00"), body.get("timestamp").asText());
+    }
+
+    @Test
+    @DisplayName("Render does not reuse the attributes of another status with the same reason")
+    public void render_ReturnsOwnStatus_whenReasonIsTheSame() throws IOException {
+        errorBodies.render(new StacklessResponseStatusException(HttpStatus.NOT_FOUND, "Invalid"), "/animes/1", "a");
+        final JsonNode body = objectMapper.readTree(errorBodies.render(
+                new StacklessResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid"), "/animes/1", "b"));
+
+        Assertions.assertEquals(400, body.get("status").asInt());
+    }
+
+    @Test
+    @DisplayName("Render does not reuse the attributes of another message with the same status")
+    public void render_ReturnsOwnMessage_whenStatusIsTheSame() throws IOException {
+        errorBodies.render(new StacklessResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid id"), "/animes/1", "a");
+        final StacklessResponseStatusException exception = new StacklessResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit");
+        final JsonNode body = objectMapper.readTree(errorBodies.render(exception, "/animes", "b"));
+
+        Assertions.assertEquals(exception.getMessage(), body.get("message").asText());
+    }
+
+    @Test
+    @DisplayName("StacklessResponseStatusException does not capture the stack")
+    public void stacklessResponseStatusException_HasNoStackTrace() {
+        Assertions.assertEquals(0, new StacklessResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found").getStackTrace().length);
+    }
+}
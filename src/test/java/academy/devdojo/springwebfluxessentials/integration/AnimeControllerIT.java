@@ -1,7 +1,13 @@
 package academy.devdojo.springwebfluxessentials.integration;
 
+import academy.devdojo.springwebfluxessentials.controller.AnimeMediaTypes;
+import academy.devdojo.springwebfluxessentials.dto.BatchDelete;
 import academy.devdojo.springwebfluxessentials.entity.Anime;
 import academy.devdojo.springwebfluxessentials.repository.AnimeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,16 +15,27 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.reactive.function.BodyInserters;
 import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.test.StepVerifier;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -26,6 +43,11 @@ import java.util.List;
 @AutoConfigureWebTestClient
 public class AnimeControllerIT {
 
+    private static final int MANY_ANIMES = 100;
+
+    @LocalServerPort
+    private int port;
+
     @Autowired
     private WebTestClient webTestClient;
 
@@ -35,6 +57,9 @@ public class AnimeControllerIT {
     @Autowired
     private AnimeRepository animeRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private void initializeSchema() {
         this.client.sql("CREATE TABLE IF NOT EXISTS anime (id INT IDENTITY PRIMARY KEY, name VARCHAR(255));"
                 + "CREATE TABLE IF NOT EXISTS USER (ID INT IDENTITY PRIMARY KEY, NAME VARCHAR(255), USERNAME VARCHAR(255), PASSWORD VARCHAR(255), AUTHORITIES VARCHAR(255));")
@@ -86,6 +111,24 @@ public class AnimeControllerIT {
 //		BlockHound.install(builder -> builder.allowBlockingCallsInside("java.util.UUID", "randomUUID"));
 //    }
 
+    /**
+     * Enough animes for the listing to be over server.compression.min-response-size
+     */
+    private void initializeManyAnimes() {
+        animeRepository.saveAll(Flux.range(1, MANY_ANIMES).map(number -> Anime.builder().name("Compressed Anime " + number).build()))
+                .blockLast();
+    }
+
+    /**
+     * The compression is done by the server, the WebTestClient bound to the application does not go through it.
+     * The default connector decompresses the responses, this one keeps the body and headers as received.
+     */
+    private WebTestClient serverClient() {
+        return WebTestClient.bindToServer(new ReactorClientHttpConnector(HttpClient.create()))
+                .baseUrl("http://localhost:" + port)
+                .build();
+    }
+
     @BeforeEach
     public void setup() {
         initializeSchema();
@@ -125,6 +168,277 @@ public class AnimeControllerIT {
                 .hasSize(4);
     }
 
+    @Test
+    @DisplayName("listAll returns not modified when the client already has the current version")
+    public void listAll_ReturnNotModified_WhenETagMatches() {
+        String eTag = webTestClient
+                .get()
+                .uri("/animes")
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .returnResult(Anime.class)
+                .getResponseHeaders()
+                .getETag();
+
+        webTestClient
+                .get()
+                .uri("/animes")
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .ifNoneMatch(eTag)
+                .exchange().expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    @DisplayName("listAll returns the animes again after a write changed the version")
+    public void listAll_ReturnFluxOfAnime_WhenETagIsOutdated() {
+        String eTag = webTestClient
+                .get()
+                .uri("/animes")
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().isOk()
+                .returnResult(Anime.class)
+                .getResponseHeaders()
+                .getETag();
+
+        webTestClient
+                .delete()
+                .uri("/animes/1")
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        webTestClient
+                .get()
+                .uri("/animes")
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .ifNoneMatch(eTag)
+                .exchange().expectStatus().isOk()
+                .expectBodyList(Anime.class)
+                .hasSize(3);
+    }
+
+    @Test
+    @DisplayName("listAll streams the animes as ndjson when asked for it")
+    public void listAll_StreamNdjson_WhenAcceptIsNdjson() {
+        final Flux<Anime> animes = webTestClient
+                .get()
+                .uri("/animes")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().is2xxSuccessful()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Anime.class)
+                .getResponseBody();
+
+        StepVerifier.create(animes)
+                .expectNext(Anime.builder().id(1).name("Full Metal").version(0).build())
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("listAll streams the animes as server sent events when asked for it")
+    public void listAll_StreamEvents_WhenAcceptIsEventStream() {
+        final Flux<Anime> animes = webTestClient
+                .get()
+                .uri("/animes")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().is2xxSuccessful()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .returnResult(Anime.class)
+                .getResponseBody();
+
+        StepVerifier.create(animes)
+                .expectNextCount(4)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("listAll returns the animes as smile when asked for it")
+    public void listAll_ReturnSmile_WhenAcceptIsSmile() {
+        webTestClient
+                .get()
+                .uri("/animes")
+                .accept(AnimeMediaTypes.APPLICATION_SMILE)
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().is2xxSuccessful()
+                .expectHeader().contentTypeCompatibleWith(AnimeMediaTypes.APPLICATION_SMILE)
+                .expectBodyList(Anime.class)
+                .hasSize(4)
+                .contains(Anime.builder().id(1).name("Full Metal").version(0).build());
+    }
+
+    @Test
+    @DisplayName("findById and listAll return not acceptable when no supported type is accepted")
+    public void findById_ReturnNotAcceptable_WhenAcceptIsNotSupported() {
+        for (final String uri : List.of("/animes/1", "/animes")) {
+            webTestClient
+                    .get()
+                    .uri(uri)
+                    .accept(MediaType.IMAGE_PNG)
+                    .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                    .exchange()
+                    .expectStatus().isEqualTo(HttpStatus.NOT_ACCEPTABLE);
+        }
+    }
+
+    @Test
+    @DisplayName("listAll returns the animes as cbor when asked for it")
+    public void listAll_ReturnCbor_WhenAcceptIsCbor() {
+        webTestClient
+                .get()
+                .uri("/animes")
+                .accept(MediaType.APPLICATION_CBOR)
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().is2xxSuccessful()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR)
+                .expectBody(new ParameterizedTypeReference<List<Anime>>() {
+                })
+                .value(animes -> Assertions.assertEquals(4, animes.size()));
+    }
+
+    @Test
+    @DisplayName("listAll streams the animes as smile values when asked for it")
+    public void listAll_StreamSmile_WhenAcceptIsSmileStream() {
+        final Flux<Anime> animes = webTestClient
+                .get()
+                .uri("/animes")
+                .accept(AnimeMediaTypes.APPLICATION_STREAM_SMILE)
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().is2xxSuccessful()
+                .expectHeader().contentTypeCompatibleWith(AnimeMediaTypes.APPLICATION_STREAM_SMILE)
+                .returnResult(Anime.class)
+                .getResponseBody();
+
+        StepVerifier.create(animes)
+                .expectNext(Anime.builder().id(1).name("Full Metal").version(0).build())
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("listAll compresses the stream when the client accepts gzip")
+    public void listAll_CompressStream_WhenAcceptEncodingIsGzip() throws IOException {
+        initializeManyAnimes();
+
+        final byte[] body = serverClient()
+                .get()
+                .uri("/animes")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().is2xxSuccessful()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+
+        Assertions.assertNotNull(body);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            final String ndjson = new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+            Assertions.assertEquals(4 + MANY_ANIMES, ndjson.lines().count());
+        }
+    }
+
+    @Test
+    @DisplayName("search returns the animes whose name starts with the query, ignoring the case")
+    public void search_ReturnFluxOfAnime_WhenNameStartsWithQuery() {
+        webTestClient
+                .get()
+                .uri("/animes/search?q=aTTack")
+                .headers(headers -> headers.setBasicAuth("thacigod", "polivalente"))
+                .exchange().expectStatus().is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].id").isEqualTo(3)
+                .jsonPath("$[0].name").isEqualTo("Attack Titan")
+                .jsonPath("$[0].version").isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("search returns an empty list when no name starts with the query")
+    public void search_ReturnEmptyList_WhenNoNameMatches() {
+        webTestClient
+                .get()
+                .uri("/animes/search?q=titan")
+                .headers(headers -> headers.setBasicAuth("thacigod", "polivalente"))
+                .exchange().expectStatus().is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("changes returns gone when the changes after the sequence sent are not kept")
+    public void changes_ReturnGone_WhenSequenceIsUnknown() {
+        webTestClient
+                .get()
+                .uri("/animes/changes?after=" + Long.MAX_VALUE)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange()
+                .expectStatus().isEqualTo(410);
+    }
+
+    @Test
+    @DisplayName("listPage returns the animes after the cursor and the next cursor")
+    public void listPage_ReturnPageOfAnime_WhenSuccessful() {
+        webTestClient
+                .get()
+                .uri("/animes?after=1&limit=2")
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(2)
+                .jsonPath("$.content[0].id").isEqualTo(2)
+                .jsonPath("$.content[1].id").isEqualTo(3)
+                .jsonPath("$.nextCursor").isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("listPage returns a page without next cursor when it is the last one")
+    public void listPage_ReturnLastPage_WhenNoMoreAnime() {
+        webTestClient
+                .get()
+                .uri("/animes?after=3&limit=2")
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(1)
+                .jsonPath("$.content[0].name").isEqualTo("Zeoraima")
+                .jsonPath("$.nextCursor").doesNotExist();
+    }
+
+    @Test
+    @DisplayName("listPage returns bad request when limit is out of range")
+    public void listPage_ReturnBadRequest_WhenLimitIsInvalid() {
+        webTestClient
+                .get()
+                .uri("/animes?limit=0")
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400);
+    }
+
+    @Test
+    @DisplayName("save returns the error of each malformed body, not the one of a previous request")
+    public void save_ReturnOwnErrorMessage_WhenBodiesAreMalformed() {
+        for (final String token : List.of("secretAlpha", "secretBravo")) {
+            webTestClient
+                    .post()
+                    .uri("/animes")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue("{\"name\": " + token + "}")
+                    .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                    .exchange()
+                    .expectStatus().isBadRequest()
+                    .expectBody()
+                    .jsonPath("$.message").value(Matchers.containsString(token));
+        }
+    }
+
     @Test
     @DisplayName("findById returns a mono of animes")
     public void findById_ReturnMonoAnime_WhenSuccessful() {
@@ -134,7 +448,43 @@ public class AnimeControllerIT {
                 .headers(headers -> headers.setBasicAuth("thacigod", "polivalente"))
                 .exchange().expectStatus().is2xxSuccessful()
                 .expectBody(Anime.class)
-                .isEqualTo(Anime.builder().id(2).name("Hellsing").build());
+                .isEqualTo(Anime.builder().id(2).name("Hellsing").version(0).build());
+    }
+
+    @Test
+    @DisplayName("findById does not compress an anime, it is under the minimum size")
+    public void findById_DoesNotCompress_WhenResponseIsSmall() {
+        serverClient()
+                .get()
+                .uri("/animes/2")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .headers(headers -> headers.setBasicAuth("thacigod", "polivalente"))
+                .exchange().expectStatus().is2xxSuccessful()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(2)
+                .jsonPath("$.name").isEqualTo("Hellsing");
+    }
+
+    @Test
+    @DisplayName("findById returns not modified when the client already has the anime")
+    public void findById_ReturnNotModified_WhenETagMatches() {
+        String eTag = webTestClient
+                .get()
+                .uri("/animes/2")
+                .headers(headers -> headers.setBasicAuth("thacigod", "polivalente"))
+                .exchange().expectStatus().isOk()
+                .returnResult(Anime.class)
+                .getResponseHeaders()
+                .getETag();
+
+        webTestClient
+                .get()
+                .uri("/animes/2")
+                .headers(headers -> headers.setBasicAuth("thacigod", "polivalente"))
+                .ifNoneMatch(eTag)
+                .exchange().expectStatus().isNotModified()
+                .expectBody().isEmpty();
     }
 
     @Test
@@ -151,6 +501,73 @@ public class AnimeControllerIT {
 
     }
 
+    @Test
+    @DisplayName("FindById returns the stack trace in the error when an admin asks for it")
+    public void findById_ReturnTrace_whenAdminAsksForTrace() {
+        webTestClient
+                .get()
+                .uri("/animes/69?trace=true")
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.trace").exists();
+    }
+
+    @Test
+    @DisplayName("FindById ignores the diagnostic flags of a user that is not admin, and look alike parameters")
+    public void findById_ReturnNoTrace_whenNotAllowedOrNotTheFlag() {
+        webTestClient
+                .get()
+                .uri("/animes/69?trace=true")
+                .headers(headers -> headers.setBasicAuth("thacigod", "polivalente"))
+                .exchange().expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.trace").doesNotExist();
+
+        webTestClient
+                .get()
+                .uri("/animes/69?xtrace=true")
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.trace").doesNotExist();
+    }
+
+    @Test
+    @DisplayName("FindById returns the Server-Timing header when an admin asks for the timing")
+    public void findById_ReturnServerTiming_whenAdminAsksForTiming() {
+        webTestClient
+                .get()
+                .uri("/animes/2?timing=true")
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().isOk()
+                .expectHeader().valueMatches("Server-Timing", ".*total;dur=.*");
+    }
+
+    @Test
+    @DisplayName("ListAll returns the time spent in the database in the Server-Timing header")
+    public void listAll_ReturnServerTimingWithDb_whenAdminAsksForTiming() {
+        webTestClient
+                .get()
+                .uri("/animes?timing=true")
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().isOk()
+                .expectHeader().valueMatches("Server-Timing", ".*db;dur=[0-9.]+.*total;dur=.*");
+    }
+
+    @Test
+    @DisplayName("The calls to a repository are timed")
+    public void repository_RecordsTimer_whenCalled() {
+        animeRepository.findPageAfter(0, 2).blockLast();
+
+        final Timer timer = meterRegistry.find("anime.repository.flow.duration")
+                .tag("repository", "animeRepository")
+                .tag("method", "findPageAfter")
+                .timer();
+        Assertions.assertNotNull(timer);
+        Assertions.assertTrue(timer.count() > 0);
+    }
+
     @Test
     @DisplayName("Save creates an anime when successful")
     public void save_CreatesAnime_whenSuccessful() {
@@ -198,7 +615,30 @@ public class AnimeControllerIT {
                 .exchange()
                 .expectStatus().isCreated()
                 .expectBodyList(Anime.class)
-                .hasSize(2);
+                .hasSize(2)
+                .value(animes -> animes.forEach(anime -> Assertions.assertNotNull(anime.getId())));
+    }
+
+    @Test
+    @DisplayName("SaveBatch reads and answers cbor when asked for it")
+    public void saveBatch_CreatesListAnime_whenBodyIsCbor() {
+        final Anime animeToBeSaved = Anime.builder().name("Afro Samurai").build();
+        webTestClient
+                .post()
+                .uri("/animes/batch")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .bodyValue(List.of(animeToBeSaved, animeToBeSaved))
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR)
+                .expectBody(new ParameterizedTypeReference<List<Anime>>() {
+                })
+                .value(animes -> {
+                    Assertions.assertEquals(2, animes.size());
+                    animes.forEach(anime -> Assertions.assertNotNull(anime.getId()));
+                });
     }
 
     @Test
@@ -216,6 +656,70 @@ public class AnimeControllerIT {
                 .expectBody()
                 .jsonPath("$.status").isEqualTo(400)
                 .jsonPath("$.developerMessage").isEqualTo("A ResponseStatusException Happened");
+
+        StepVerifier.create(animeRepository.count())
+                .expectNext(4L)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Import saves the valid lines of a ndjson body and reports the invalid ones")
+    public void import_ReturnsSummary_whenBodyIsNdjson() {
+        final String body = "{\"name\":\"Afro Samurai\"}\n{\"name\":\"\"}\n{\"name\":\"Trigun\"}\n";
+        webTestClient
+                .post()
+                .uri("/animes/import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body.getBytes(StandardCharsets.UTF_8))
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.accepted").isEqualTo(2)
+                .jsonPath("$.rejected").isEqualTo(1)
+                .jsonPath("$.rejections[0].line").isEqualTo(2);
+
+        StepVerifier.create(animeRepository.count())
+                .expectNext(6L)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Import skips and reports a malformed line and saves the other lines")
+    public void import_ReturnsSummary_whenLineIsMalformed() {
+        final String body = "{\"name\":\"Afro Samurai\"}\n{\"name\":\"Trigun\"}\n{\"name\": Berserk}\n{\"name\":\"Berserk\"}\n";
+        webTestClient
+                .post()
+                .uri("/animes/import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body.getBytes(StandardCharsets.UTF_8))
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.accepted").isEqualTo(3)
+                .jsonPath("$.rejected").isEqualTo(1)
+                .jsonPath("$.rejections[0].line").isEqualTo(3);
+
+        StepVerifier.create(animeRepository.count())
+                .expectNext(7L)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Import reads a stream of smile values")
+    public void import_SavesAnimes_WhenBodyIsSmileStream() {
+        webTestClient
+                .post()
+                .uri("/animes/import")
+                .contentType(AnimeMediaTypes.APPLICATION_STREAM_SMILE)
+                .body(Flux.just(Anime.builder().name("Afro Samurai").build(), Anime.builder().name("Trigun").build()), Anime.class)
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.accepted").isEqualTo(2)
+                .jsonPath("$.rejected").isEqualTo(0);
     }
 
     @Test
@@ -234,6 +738,35 @@ public class AnimeControllerIT {
                 .isEmpty();
     }
 
+    @Test
+    @DisplayName("Update returns conflict when the anime was changed since its version was read")
+    public void update_ReturnConflict_whenVersionIsOutdated() {
+        final Anime animeNewName = Anime.builder().name("Detonator Orgun").version(0).build();
+        webTestClient
+                .put()
+                .uri("/animes/2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(animeNewName))
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        webTestClient
+                .put()
+                .uri("/animes/2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(animeNewName.withName("Detonator Orgun 2")))
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(409);
+
+        StepVerifier.create(animeRepository.findById(2))
+                .expectNext(Anime.builder().id(2).name("Detonator Orgun").version(1).build())
+                .verifyComplete();
+    }
+
     @Test
     @DisplayName("Update returns Mono Error when anime does not exist")
     public void update_ReturnMonoError_whenEmptyMonoIsReturned() {
@@ -267,6 +800,65 @@ public class AnimeControllerIT {
                 .jsonPath("$.status").isEqualTo(405);
     }
 
+    @Test
+    @DisplayName("UpdateBatch renames the animes found and reports the others as not found")
+    public void updateBatch_ReturnsResultPerId_WhenSomeAnimesDoNotExist() {
+        webTestClient
+                .patch()
+                .uri("/animes/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(List.of(
+                        Anime.builder().id(3).name("Attack on Titan").build(),
+                        Anime.builder().id(666).name("Detonator Orgun").build())))
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.succeeded").isEqualTo(1)
+                .jsonPath("$.notFound").isEqualTo(1)
+                .jsonPath("$.items[0].id").isEqualTo(3)
+                .jsonPath("$.items[0].status").isEqualTo(200)
+                .jsonPath("$.items[1].id").isEqualTo(666)
+                .jsonPath("$.items[1].status").isEqualTo(404);
+
+        StepVerifier.create(animeRepository.findById(3))
+                .expectNext(Anime.builder().id(3).name("Attack on Titan").version(1).build())
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("UpdateBatch returns forbidden when user is not admin")
+    public void updateBatch_ReturnForbidden_WhenUserIsNotAdmin() {
+        webTestClient
+                .patch()
+                .uri("/animes/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(List.of(Anime.builder().id(3).name("Attack on Titan").build())))
+                .headers(headers -> headers.setBasicAuth("thacigod", "polivalente"))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    @DisplayName("DeleteBatch deletes every anime whose name starts with the prefix")
+    public void deleteBatch_RemovesAnimes_WhenNameStartsWithPrefix() {
+        webTestClient
+                .method(HttpMethod.DELETE)
+                .uri("/animes/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(BatchDelete.builder().namePrefix("HELL").build()))
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.succeeded").isEqualTo(1)
+                .jsonPath("$.items[0].id").isEqualTo(2);
+
+        StepVerifier.create(animeRepository.count())
+                .expectNext(3L)
+                .verifyComplete();
+    }
+
     @Test
     @DisplayName("Delete removes the anime when successful")
     public void delete_RemovesAnime_whenSuccessful() {
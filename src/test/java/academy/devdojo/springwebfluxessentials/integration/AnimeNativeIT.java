@@ -0,0 +1,157 @@
+package academy.devdojo.springwebfluxessentials.integration;
+
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+
+/**
+ * Black box tests of the application already running at it.base-url, the native image started by
+ * ./gradlew nativeIntegrationTest. Nothing is reset between tests, they only rely on the seeded animes and users.
+ */
+@Tag("native")
+public class AnimeNativeIT {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+
+    private static WebTestClient webTestClient;
+
+    @BeforeAll
+    public static void waitForApplication() throws InterruptedException {
+        // the animes have no default constructor, they are read with the names of the constructor parameters
+        // like in the application
+        final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .modulesToInstall(new ParameterNamesModule())
+                .build();
+        webTestClient = WebTestClient.bindToServer()
+                .baseUrl(System.getProperty("it.base-url", "http://localhost:8080"))
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .responseTimeout(Duration.ofSeconds(10))
+                .build();
+
+        final long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                // the seeding runs in the background, the users exist once anime 1 can be read
+                final HttpStatus status = webTestClient.get()
+                        .uri("/animes/{id}", 1)
+                        .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                        .exchange()
+                        .returnResult(String.class)
+                        .getStatus();
+                if (status.is2xxSuccessful()) {
+                    return;
+                }
+            } catch (Exception e) {
+                // not listening yet
+            }
+            Thread.sleep(200);
+        }
+        Assertions.fail("The application did not start in " + STARTUP_TIMEOUT);
+    }
+
+    @Test
+    @DisplayName("listAll returns the seeded animes to an admin")
+    public void listAll_ReturnFluxOfAnime_WhenSuccessful() {
+        webTestClient
+                .get()
+                .uri("/animes")
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.[0].id").isEqualTo(1)
+                .jsonPath("$.[0].name").isEqualTo("Full Metal");
+    }
+
+    @Test
+    @DisplayName("search finds a seeded anime from the start of its name")
+    public void search_ReturnFluxOfAnime_WhenNameStartsWithQuery() {
+        webTestClient
+                .get()
+                .uri("/animes/search?q=hell")
+                .headers(headers -> headers.setBasicAuth("thacigod", "polivalente"))
+                .exchange().expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.[0].name").isEqualTo("Hellsing");
+    }
+
+    @Test
+    @DisplayName("save and delete work for an admin")
+    public void save_ThenDelete_WhenUserIsAdmin() {
+        final Anime saved = webTestClient
+                .post()
+                .uri("/animes")
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .bodyValue(Anime.builder().name("Native Anime").build())
+                .exchange().expectStatus().isCreated()
+                .expectBody(Anime.class)
+                .returnResult().getResponseBody();
+
+        Assertions.assertNotNull(saved);
+        Assertions.assertNotNull(saved.getId());
+        Assertions.assertEquals("Native Anime", saved.getName());
+
+        webTestClient
+                .delete()
+                .uri("/animes/{id}", saved.getId())
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().isNoContent();
+    }
+
+    @Test
+    @DisplayName("save returns forbidden when the user is not an admin")
+    public void save_ReturnForbidden_WhenUserIsNotAdmin() {
+        webTestClient
+                .post()
+                .uri("/animes")
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(headers -> headers.setBasicAuth("thacigod", "polivalente"))
+                .bodyValue(Anime.builder().name("Native Anime").build())
+                .exchange().expectStatus().isForbidden();
+    }
+
+    @Test
+    @DisplayName("findById returns not found with the error body when the anime does not exist")
+    public void findById_ReturnNotFound_WhenAnimeDoesNotExist() {
+        webTestClient
+                .get()
+                .uri("/animes/{id}", Integer.MAX_VALUE)
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(404);
+    }
+
+    @Test
+    @DisplayName("the api docs and swagger ui resources are served")
+    public void apiDocs_AreServed() {
+        webTestClient.get().uri("/v3/api-docs").exchange().expectStatus().isOk();
+        webTestClient.get().uri("/webjars/swagger-ui/index.html").exchange().expectStatus().isOk();
+    }
+
+    @Test
+    @DisplayName("the startup report is published")
+    public void startupReport_IsPublished() {
+        webTestClient
+                .get()
+                .uri("/actuator/metrics/application.startup.ready")
+                .headers(headers -> headers.setBasicAuth("cavalo", "cansado"))
+                .exchange().expectStatus().isOk();
+    }
+}
@@ -0,0 +1,10 @@
+package academy.devdojo.springwebfluxessentials.integration;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Every test of AnimeControllerIT against the functional endpoints, AnimeRouter and AnimeHandler
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "anime.web.functional=true")
+public class AnimeRouterIT extends AnimeControllerIT {
+}
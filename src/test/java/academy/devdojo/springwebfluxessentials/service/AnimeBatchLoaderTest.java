@@ -0,0 +1,93 @@
+package academy.devdojo.springwebfluxessentials.service;
+
+import academy.devdojo.springwebfluxessentials.configuration.AnimeProperties;
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import academy.devdojo.springwebfluxessentials.repository.AnimeRepository;
+import academy.devdojo.springwebfluxessentials.util.AnimeCreator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.Optional;
+import java.util.Set;
+
+class AnimeBatchLoaderTest {
+
+    private final AnimeRepository animeRepository = Mockito.mock(AnimeRepository.class);
+
+    private final Anime anime = AnimeCreator.createValidAnime();
+
+    private final Anime otherAnime = Anime.builder().id(2).name("Hellsing").build();
+
+    private AnimeBatchLoader animeBatchLoader;
+
+    @BeforeEach
+    public void setup() {
+        final AnimeProperties animeProperties = new AnimeProperties();
+        animeProperties.getBatch().setConcurrency(1);
+        animeBatchLoader = new AnimeBatchLoader(animeRepository, animeProperties);
+    }
+
+    @Test
+    @DisplayName("Load sends the query right away when no other query is running")
+    public void load_QueriesRightAway_whenNoQueryIsRunning() {
+        BDDMockito.when(animeRepository.findByIdIn(Set.of(1)))
+                .thenReturn(Flux.just(anime));
+
+        final Mono<Anime> load = animeBatchLoader.load(1).cache();
+        load.subscribe();
+
+        BDDMockito.verify(animeRepository).findByIdIn(Set.of(1));
+        StepVerifier.create(load)
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Load reads all the ids asked while a query is running with a single query")
+    public void load_UsesSingleQuery_whenIdsAskedWhileQueryIsRunning() {
+        final Sinks.Many<Anime> runningQuery = Sinks.many().unicast().onBackpressureBuffer();
+        BDDMockito.when(animeRepository.findByIdIn(Set.of(1)))
+                .thenReturn(runningQuery.asFlux());
+        BDDMockito.when(animeRepository.findByIdIn(Set.of(2, 99)))
+                .thenReturn(Flux.just(otherAnime));
+
+        StepVerifier.create(Mono.zip(animeBatchLoader.load(1), animeBatchLoader.load(2),
+                animeBatchLoader.load(99).map(Optional::of).defaultIfEmpty(Optional.empty())))
+                .expectSubscription()
+                .then(() -> {
+                    BDDMockito.verify(animeRepository, Mockito.never()).findByIdIn(Set.of(2, 99));
+                    runningQuery.tryEmitNext(anime);
+                    runningQuery.tryEmitComplete();
+                })
+                .assertNext(animes -> {
+                    Assertions.assertEquals(anime, animes.getT1());
+                    Assertions.assertEquals(otherAnime, animes.getT2());
+                    Assertions.assertTrue(animes.getT3().isEmpty());
+                })
+                .verifyComplete();
+
+        BDDMockito.verify(animeRepository, Mockito.times(2)).findByIdIn(ArgumentMatchers.anyCollection());
+    }
+
+    @Test
+    @DisplayName("Load returns the error to every caller of the batch when the query fails")
+    public void load_ReturnsError_whenQueryFails() {
+        BDDMockito.when(animeRepository.findByIdIn(ArgumentMatchers.anyCollection()))
+                .thenReturn(Flux.error(new IllegalStateException("database down")));
+
+        StepVerifier.create(animeBatchLoader.load(1))
+                .expectSubscription()
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+}
@@ -0,0 +1,68 @@
+package academy.devdojo.springwebfluxessentials.service;
+
+import academy.devdojo.springwebfluxessentials.configuration.AnimeProperties;
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import academy.devdojo.springwebfluxessentials.util.AnimeCreator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AnimeCacheTest {
+
+    private final AnimeCache animeCache = new AnimeCache(new AnimeProperties());
+
+    private final Anime anime = AnimeCreator.createValidAnime();
+
+    @Test
+    @DisplayName("Get loads only once when the same id is missed concurrently")
+    public void get_LoadsOnce_whenConcurrentMisses() {
+        final AtomicInteger loads = new AtomicInteger();
+        final Mono<Anime> slowLoad = Mono.fromCallable(() -> {
+            loads.incrementAndGet();
+            return anime;
+        }).delayElement(Duration.ofMillis(50));
+
+        StepVerifier.create(Mono.zip(animeCache.get(1, () -> slowLoad), animeCache.get(1, () -> slowLoad)))
+                .expectSubscription()
+                .assertNext(animes -> {
+                    Assertions.assertEquals(anime, animes.getT1());
+                    Assertions.assertEquals(anime, animes.getT2());
+                })
+                .verifyComplete();
+
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(1, animeCache.stats().missCount());
+        Assertions.assertEquals(1, animeCache.stats().hitCount());
+    }
+
+    @Test
+    @DisplayName("Get does not cache an empty load")
+    public void get_DoesNotCache_whenLoadIsEmpty() {
+        final AtomicInteger loads = new AtomicInteger();
+        final Mono<Anime> emptyLoad = Mono.fromRunnable(loads::incrementAndGet);
+
+        StepVerifier.create(animeCache.get(99, () -> emptyLoad).then(animeCache.get(99, () -> emptyLoad)))
+                .expectSubscription()
+                .verifyComplete();
+
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Invalidate forces the next get to load again")
+    public void invalidate_ForcesReload_whenAnimeChanged() {
+        final Anime animeUpdated = AnimeCreator.createValidUpdateAnime();
+        animeCache.put(anime);
+        animeCache.invalidate(anime.getId());
+
+        StepVerifier.create(animeCache.get(anime.getId(), () -> Mono.just(animeUpdated)))
+                .expectSubscription()
+                .expectNext(animeUpdated)
+                .verifyComplete();
+    }
+}
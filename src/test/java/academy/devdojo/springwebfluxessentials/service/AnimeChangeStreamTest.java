@@ -0,0 +1,104 @@
+package academy.devdojo.springwebfluxessentials.service;
+
+import academy.devdojo.springwebfluxessentials.configuration.AnimeProperties;
+import academy.devdojo.springwebfluxessentials.dto.AnimeChange;
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+class AnimeChangeStreamTest {
+
+    private final Anime hellsing = Anime.builder().id(2).name("Hellsing").version(0).build();
+
+    private final Anime attackTitan = Anime.builder().id(3).name("Attack Titan").version(0).build();
+
+    private final Anime zeoraima = Anime.builder().id(4).name("Zeoraima").version(0).build();
+
+    private AnimeChangeStream changeStream(final int replaySize) {
+        final AnimeProperties animeProperties = new AnimeProperties();
+        animeProperties.getChanges().setReplaySize(replaySize);
+        return new AnimeChangeStream(animeProperties);
+    }
+
+    @Test
+    @DisplayName("Changes resumes right after the sequence received")
+    public void changes_ReturnChangesAfterSequence_whenResuming() {
+        final AnimeChangeStream animeChangeStream = changeStream(10);
+        final List<AnimeChange> received = new ArrayList<>();
+        final Disposable subscription = animeChangeStream.changes(null, AnimeChangeStream.Overflow.BUFFER).subscribe(received::add);
+        animeChangeStream.publish(AnimeChange.Type.CREATED, List.of(hellsing, attackTitan, zeoraima)).block();
+        subscription.dispose();
+
+        StepVerifier.create(animeChangeStream.changes(received.get(0).getSequence(), AnimeChangeStream.Overflow.BUFFER).take(2))
+                .expectSubscription()
+                .assertNext(change -> Assertions.assertEquals(attackTitan, change.getAnime()))
+                .assertNext(change -> Assertions.assertEquals(zeoraima, change.getAnime()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Changes without sequence only returns the changes made after subscribing")
+    public void changes_ReturnOnlyNewChanges_whenNoSequenceIsSent() {
+        final AnimeChangeStream animeChangeStream = changeStream(10);
+        animeChangeStream.publish(AnimeChange.Type.CREATED, List.of(hellsing)).block();
+
+        StepVerifier.create(animeChangeStream.changes(null, AnimeChangeStream.Overflow.BUFFER))
+                .expectSubscription()
+                .then(() -> animeChangeStream.publish(AnimeChange.Type.DELETED, List.of(Anime.builder().id(2).build())).block())
+                .assertNext(change -> Assertions.assertEquals(AnimeChange.Type.DELETED, change.getType()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Changes returns gone when the changes after the sequence are no longer kept")
+    public void changes_ReturnGone_whenSequenceIsOutOfTheReplayWindow() {
+        final AnimeChangeStream animeChangeStream = changeStream(1);
+        animeChangeStream.publish(AnimeChange.Type.CREATED, List.of(hellsing, attackTitan, zeoraima)).block();
+
+        StepVerifier.create(animeChangeStream.changes(1L, AnimeChangeStream.Overflow.BUFFER))
+                .expectErrorMatches(e -> e instanceof ResponseStatusException
+                        && ((ResponseStatusException) e).getStatus() == HttpStatus.GONE)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Changes returns gone right away when the sequence is older than the stream and nothing is replayed")
+    public void changes_ReturnGone_whenSequenceIsFromBeforeARestart() {
+        StepVerifier.create(changeStream(10).changes(1L, AnimeChangeStream.Overflow.BUFFER))
+                .expectErrorMatches(e -> e instanceof ResponseStatusException
+                        && ((ResponseStatusException) e).getStatus() == HttpStatus.GONE)
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    @DisplayName("Changes returns gone when the sequence was not reached yet")
+    public void changes_ReturnGone_whenSequenceIsInTheFuture() {
+        StepVerifier.create(changeStream(10).changes(Long.MAX_VALUE, AnimeChangeStream.Overflow.BUFFER))
+                .expectError(ResponseStatusException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Changes keeps only the latest change for a slow subscriber when asked to")
+    public void changes_ReturnLatestChange_whenSubscriberIsSlow() {
+        final AnimeChangeStream animeChangeStream = changeStream(10);
+
+        StepVerifier.create(animeChangeStream.changes(null, AnimeChangeStream.Overflow.LATEST), 0)
+                .expectSubscription()
+                .then(() -> animeChangeStream.publish(AnimeChange.Type.CREATED, List.of(hellsing, attackTitan, zeoraima)).block())
+                .thenRequest(1)
+                .assertNext(change -> Assertions.assertEquals(zeoraima, change.getAnime()))
+                .thenCancel()
+                .verify();
+    }
+}
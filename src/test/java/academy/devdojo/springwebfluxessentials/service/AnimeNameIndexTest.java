@@ -0,0 +1,92 @@
+package academy.devdojo.springwebfluxessentials.service;
+
+import academy.devdojo.springwebfluxessentials.configuration.AnimeProperties;
+import academy.devdojo.springwebfluxessentials.entity.Anime;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+class AnimeNameIndexTest {
+
+    private final AnimeNameIndex animeNameIndex = new AnimeNameIndex(new AnimeProperties());
+
+    private final Anime hellsing = Anime.builder().id(2).name("Hellsing").build();
+
+    private final Anime hellsingUltimate = Anime.builder().id(5).name("Hellsing Ultimate").build();
+
+    private final Anime attackTitan = Anime.builder().id(3).name("Attack Titan").build();
+
+    @Test
+    @DisplayName("Search returns the animes starting with the prefix sorted by name, ignoring the case")
+    public void search_ReturnAnimesSortedByName_whenPrefixMatches() {
+        StepVerifier.create(animeNameIndex.load(Flux.just(hellsingUltimate, attackTitan, hellsing)))
+                .verifyComplete();
+
+        Assertions.assertTrue(animeNameIndex.isReady());
+        Assertions.assertEquals(List.of(hellsing, hellsingUltimate), animeNameIndex.search("HELL", 10));
+        Assertions.assertEquals(List.of(hellsing), animeNameIndex.search("hell", 1));
+        Assertions.assertEquals(List.of(), animeNameIndex.search("titan", 10));
+    }
+
+    @Test
+    @DisplayName("Put replaces the old name and remove drops the anime")
+    public void put_ReplacesOldName_whenAnimeIsUpdated() {
+        animeNameIndex.put(hellsing);
+        animeNameIndex.put(hellsing.withName("Trigun"));
+
+        Assertions.assertEquals(List.of(), animeNameIndex.search("hell", 10));
+        Assertions.assertEquals(List.of(hellsing.withName("Trigun")), animeNameIndex.search("tri", 10));
+
+        animeNameIndex.remove(hellsing.getId());
+
+        Assertions.assertEquals(List.of(), animeNameIndex.search("tri", 10));
+    }
+
+    @Test
+    @DisplayName("Search returns the version, rename increments it like the UPDATE does")
+    public void rename_IncrementsVersion_whenAnimeIsRenamed() {
+        final Anime trigun = Anime.builder().id(2).name("Trigun").build();
+        animeNameIndex.put(hellsing.withVersion(0));
+
+        Assertions.assertEquals(List.of(hellsing.withVersion(0)), animeNameIndex.search("hell", 10));
+
+        animeNameIndex.rename(trigun);
+
+        Assertions.assertEquals(List.of(trigun.withVersion(1)), animeNameIndex.search("tri", 10));
+
+        animeNameIndex.rename(hellsing.withVersion(1));
+
+        Assertions.assertEquals(List.of(hellsing.withVersion(2)), animeNameIndex.search("hell", 10));
+    }
+
+    @Test
+    @DisplayName("Load keeps the writes made while it was loading")
+    public void load_KeepsConcurrentWrites_whenAnimesChangeWhileLoading() {
+        animeNameIndex.put(hellsing.withName("Trigun"));
+        animeNameIndex.remove(attackTitan.getId());
+
+        StepVerifier.create(animeNameIndex.load(Flux.just(hellsing, attackTitan)))
+                .verifyComplete();
+
+        Assertions.assertEquals(List.of(), animeNameIndex.search("hell", 10));
+        Assertions.assertEquals(List.of(), animeNameIndex.search("att", 10));
+        Assertions.assertEquals(List.of(hellsing.withName("Trigun")), animeNameIndex.search("tri", 10));
+    }
+
+    @Test
+    @DisplayName("Search is never ready when the in memory index is disabled")
+    public void load_IsNotReady_whenDisabled() {
+        final AnimeProperties animeProperties = new AnimeProperties();
+        animeProperties.getSearch().setInMemory(false);
+        final AnimeNameIndex disabled = new AnimeNameIndex(animeProperties);
+
+        StepVerifier.create(disabled.load(Flux.just(hellsing)))
+                .verifyComplete();
+
+        Assertions.assertFalse(disabled.isReady());
+    }
+}
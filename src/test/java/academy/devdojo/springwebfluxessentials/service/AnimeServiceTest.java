@@ -1,14 +1,28 @@
 package academy.devdojo.springwebfluxessentials.service;
 
+import academy.devdojo.springwebfluxessentials.configuration.AnimeProperties;
+import academy.devdojo.springwebfluxessentials.dto.AnimeChange;
+import academy.devdojo.springwebfluxessentials.dto.BatchDelete;
+import academy.devdojo.springwebfluxessentials.dto.BatchResult;
+import academy.devdojo.springwebfluxessentials.dto.ImportSummary;
 import academy.devdojo.springwebfluxessentials.entity.Anime;
 import academy.devdojo.springwebfluxessentials.repository.AnimeRepository;
 import academy.devdojo.springwebfluxessentials.util.AnimeCreator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.blockhound.BlockingOperationError;
@@ -30,6 +44,26 @@ class AnimeServiceTest {
     @Mock
     private AnimeRepository animeRepository;
 
+    @Spy
+    private AnimeProperties animeProperties = new AnimeProperties();
+
+    @Spy
+    private AnimeCache animeCache = new AnimeCache(new AnimeProperties());
+
+    @Mock
+    private AnimeBatchLoader animeBatchLoader;
+
+    @Spy
+    private AnimeNameIndex animeNameIndex = new AnimeNameIndex(new AnimeProperties());
+
+    @Spy
+    private AnimeChangeStream animeChangeStream = new AnimeChangeStream(new AnimeProperties());
+
+    @Spy
+    private ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new ParameterNamesModule())
+            .build();
+
     private Anime anime = AnimeCreator.createValidAnime();
 
     @BeforeAll
@@ -42,21 +76,54 @@ class AnimeServiceTest {
         BDDMockito.when(animeRepository.findAll())
                 .thenReturn(Flux.just(anime));
 
-        BDDMockito.when(animeRepository.findById(1))
+        BDDMockito.when(animeRepository.findPageAfter(0, 1))
+                .thenReturn(Flux.just(anime));
+
+        BDDMockito.when(animeRepository.findPageAfter(1, 1))
+                .thenReturn(Flux.empty());
+
+        BDDMockito.when(animeRepository.searchByName("tensei", "tensei" + Character.MAX_VALUE, 10))
+                .thenReturn(Flux.just(anime));
+
+        BDDMockito.when(animeRepository.updateName(1, "Tensei Shitara"))
+                .thenReturn(Mono.just(1));
+
+        BDDMockito.when(animeRepository.updateName(99, "Error"))
+                .thenReturn(Mono.just(0));
+
+        BDDMockito.when(animeRepository.updateName(1, "Tensei Shitara", 0))
+                .thenReturn(Mono.just(0));
+
+        BDDMockito.when(animeRepository.existsById(1))
+                .thenReturn(Mono.just(true));
+
+        BDDMockito.when(animeRepository.deleteAnime(1))
+                .thenReturn(Mono.just(1));
+
+        BDDMockito.when(animeRepository.deleteAnime(99))
+                .thenReturn(Mono.just(0));
+
+        BDDMockito.when(animeRepository.updateNames(List.of(AnimeCreator.createValidUpdateAnime(), Anime.builder().id(99).name("Error").build())))
+                .thenReturn(Flux.just(1));
+
+        BDDMockito.when(animeRepository.deleteAllByIdIn(List.of(1, 99)))
+                .thenReturn(Flux.just(1));
+
+        BDDMockito.when(animeRepository.incrementTableVersion())
+                .thenReturn(Mono.just(1));
+
+        BDDMockito.when(animeBatchLoader.load(1))
                 .thenReturn(Mono.just(anime));
 
-        BDDMockito.when(animeRepository.findById(99))
+        BDDMockito.when(animeBatchLoader.load(99))
                 .thenReturn(Mono.empty());
 
         BDDMockito.when(animeRepository.save(AnimeCreator.createAnimeToBeSaved()))
                 .thenReturn(Mono.just(anime));
 
-        BDDMockito.when(animeRepository.saveAll(List.of(AnimeCreator.createAnimeToBeSaved(), AnimeCreator.createAnimeToBeSaved())))
+        BDDMockito.when(animeRepository.insertAll(List.of(AnimeCreator.createAnimeToBeSaved(), AnimeCreator.createAnimeToBeSaved())))
                 .thenReturn(Flux.just(anime, anime));
 
-        BDDMockito.when(animeRepository.delete(ArgumentMatchers.any(Anime.class)))
-                .thenReturn(Mono.empty());
-
         BDDMockito.when(animeRepository.save(AnimeCreator.createValidAnime()))
                 .thenReturn(Mono.empty());
     }
@@ -86,6 +153,94 @@ class AnimeServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("StreamAll returns a flux of anime")
+    public void streamAll_ReturnFluxOfAnime_whenSuccessful() {
+        StepVerifier.create(animeService.streamAll())
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("FindPage returns a page of anime with the cursor of the next page")
+    public void findPage_ReturnPageWithNextCursor_whenPageIsFull() {
+        StepVerifier.create(animeService.findPage(0, 1))
+                .expectSubscription()
+                .assertNext(page -> {
+                    Assertions.assertEquals(List.of(anime), page.getContent());
+                    Assertions.assertEquals(anime.getId(), page.getNextCursor());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("FindPage returns a page without next cursor when there is no more anime")
+    public void findPage_ReturnPageWithoutNextCursor_whenLastPage() {
+        StepVerifier.create(animeService.findPage(1, 1))
+                .expectSubscription()
+                .assertNext(page -> {
+                    Assertions.assertTrue(page.getContent().isEmpty());
+                    Assertions.assertNull(page.getNextCursor());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("FindPage returns a Mono Error when limit is out of range")
+    public void findPage_ReturnMonoError_whenLimitIsInvalid() {
+        StepVerifier.create(animeService.findPage(0, 0))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Search returns the animes from the database while the name index is not loaded")
+    public void search_ReturnFluxOfAnimeFromDatabase_whenIndexIsNotLoaded() {
+        StepVerifier.create(animeService.search("TENSEI", 10))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Search returns the animes from the name index once it is loaded")
+    public void search_ReturnFluxOfAnimeFromIndex_whenIndexIsLoaded() {
+        animeService.loadNameIndex();
+
+        StepVerifier.create(animeService.search("tens", 10))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+
+        BDDMockito.verify(animeRepository, Mockito.never())
+                .searchByName(ArgumentMatchers.anyString(), ArgumentMatchers.anyString(), ArgumentMatchers.anyInt());
+    }
+
+    @Test
+    @DisplayName("Search keeps going to the database when the name index could not be loaded")
+    public void search_ReturnFluxOfAnimeFromDatabase_whenIndexLoadFails() {
+        BDDMockito.when(animeRepository.findAll())
+                .thenReturn(Flux.error(new IllegalStateException("Connection refused")));
+
+        Assertions.assertDoesNotThrow(() -> animeService.loadNameIndex());
+
+        StepVerifier.create(animeService.search("TENSEI", 10))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Search returns Mono error when the query is blank")
+    public void search_ReturnMonoError_whenQueryIsBlank() {
+        StepVerifier.create(animeService.search(" ", 10))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+    }
+
     @Test
     @DisplayName("FindById returns a Mono with anime if exists")
     public void findById_ReturnMonoOfAnime_whenSuccessful() {
@@ -95,6 +250,17 @@ class AnimeServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("FindById reads the anime from the cache after the first call")
+    public void findById_ReadFromCache_whenCalledTwice() {
+        StepVerifier.create(animeService.findById(1).then(animeService.findById(1)))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+
+        BDDMockito.verify(animeBatchLoader, Mockito.times(1)).load(1);
+    }
+
     @Test
     @DisplayName("FindById returns a Mono Error when anime does not exist")
     public void findById_ReturnMonoOfError_whenEmptyMonoIsReturned() {
@@ -104,6 +270,23 @@ class AnimeServiceTest {
                 .verify();
     }
 
+    @Test
+    @DisplayName("FindById counts the not found error when anime does not exist")
+    public void findById_CountsError_whenEmptyMonoIsReturned() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            StepVerifier.create(animeService.findById(99))
+                    .expectSubscription()
+                    .expectError(ResponseStatusException.class)
+                    .verify();
+
+            Assertions.assertEquals(1, registry.counter("anime.service.errors", "status", "404").count());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
     @Test
     @DisplayName("Save creates an anime when successful")
     public void save_CreatesAnime_whenSuccessful() {
@@ -112,6 +295,8 @@ class AnimeServiceTest {
                 .expectSubscription()
                 .expectNext(anime)
                 .verifyComplete();
+
+        BDDMockito.verify(animeRepository, Mockito.times(1)).incrementTableVersion();
     }
 
     @Test
@@ -125,18 +310,72 @@ class AnimeServiceTest {
     }
 
     @Test
-    @DisplayName("SaveAll return Mono error when one of the objects in the list contains null or empty name")
+    @DisplayName("SaveAll return Mono error without writing anything when one of the objects in the list contains null or empty name")
     public void saveAll_ReturnsMonoError_whenContainsInvalidName() {
         final Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
 
-        BDDMockito.when(animeRepository.saveAll(ArgumentMatchers.anyIterable()))
-                .thenReturn(Flux.just(anime, anime.withName("")));
-
         StepVerifier.create(animeService.saveAll(List.of(animeToBeSaved, animeToBeSaved.withName(""))))
                 .expectSubscription()
-                .expectNext(anime)
                 .expectError(ResponseStatusException.class)
                 .verify();
+
+        BDDMockito.verify(animeRepository, Mockito.never()).insertAll(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    @DisplayName("ImportAll saves the valid animes and reports the invalid ones")
+    public void importAll_ReturnsSummary_whenSomeNamesAreInvalid() {
+        final Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
+
+        BDDMockito.when(animeRepository.insertAll(List.of(animeToBeSaved, animeToBeSaved)))
+                .thenReturn(Flux.just(anime, anime));
+
+        StepVerifier.create(animeService.importAll(Flux.just(animeToBeSaved, animeToBeSaved.withName(""), animeToBeSaved)))
+                .expectSubscription()
+                .assertNext(summary -> {
+                    Assertions.assertEquals(2, summary.getAccepted());
+                    Assertions.assertEquals(1, summary.getRejected());
+                    Assertions.assertEquals(2, summary.getRejections().get(0).getLine());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("ImportAll saves the animes read before a malformed line and reports it")
+    public void importAll_ReturnsPartialSummary_whenLineIsMalformed() {
+        final Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
+
+        BDDMockito.when(animeRepository.insertAll(List.of(animeToBeSaved, animeToBeSaved)))
+                .thenReturn(Flux.just(anime, anime));
+
+        StepVerifier.create(animeService.importAll(Flux.just(animeToBeSaved, animeToBeSaved)
+                .concatWith(Flux.error(new DecodingException("JSON decoding error")))))
+                .expectSubscription()
+                .assertNext(summary -> {
+                    Assertions.assertEquals(2, summary.getAccepted());
+                    Assertions.assertEquals(1, summary.getRejected());
+                    Assertions.assertEquals(3, summary.getRejections().get(0).getLine());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("ImportLines skips and reports the malformed lines and imports the ones after them")
+    public void importLines_ReturnsSummary_whenSomeLinesAreMalformed() {
+        final Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
+        final String line = "{\"name\":\"" + animeToBeSaved.getName() + "\"}";
+
+        BDDMockito.when(animeRepository.insertAll(List.of(animeToBeSaved, animeToBeSaved)))
+                .thenReturn(Flux.just(anime, anime));
+
+        StepVerifier.create(animeService.importLines(Flux.just(line, "{\"name\": Tensei}", "", line)))
+                .expectSubscription()
+                .assertNext(summary -> {
+                    Assertions.assertEquals(2, summary.getAccepted());
+                    Assertions.assertEquals(1, summary.getRejected());
+                    Assertions.assertEquals(new ImportSummary.Rejection(2, "Malformed JSON"), summary.getRejections().get(0));
+                })
+                .verifyComplete();
     }
 
     @Test
@@ -147,6 +386,24 @@ class AnimeServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("Save and delete publish their changes to the subscribers of the changes")
+    public void changes_ReturnCreatedAndDeleted_whenAnimeIsSavedThenDeleted() {
+        StepVerifier.create(animeService.changes(null, AnimeChangeStream.Overflow.BUFFER))
+                .expectSubscription()
+                .then(() -> animeService.save(AnimeCreator.createAnimeToBeSaved()).then(animeService.delete(1)).block())
+                .assertNext(change -> {
+                    Assertions.assertEquals(AnimeChange.Type.CREATED, change.getType());
+                    Assertions.assertEquals(anime, change.getAnime());
+                })
+                .assertNext(change -> {
+                    Assertions.assertEquals(AnimeChange.Type.DELETED, change.getType());
+                    Assertions.assertEquals(1, change.getAnime().getId());
+                })
+                .thenCancel()
+                .verify();
+    }
+
     @Test
     @DisplayName("Delete returns Mono error when anime does not exist")
     public void delete_ReturnMonoError_WhenEmptyMonoIsReturned() {
@@ -161,6 +418,64 @@ class AnimeServiceTest {
         StepVerifier.create(animeService.update(AnimeCreator.createValidAnime()))
                 .expectSubscription()
                 .verifyComplete();
+
+        BDDMockito.verify(animeRepository, Mockito.never()).findById(ArgumentMatchers.anyInt());
+    }
+
+    @Test
+    @DisplayName("Update returns Mono Error with conflict when the anime was changed since its version was read")
+    public void update_ReturnMonoErrorConflict_whenVersionIsOutdated() {
+        StepVerifier.create(animeService.update(AnimeCreator.createValidAnime().withVersion(0)))
+                .expectErrorMatches(e -> e instanceof ResponseStatusException
+                        && ((ResponseStatusException) e).getStatus() == HttpStatus.CONFLICT)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("UpdateAll renames the animes found and reports the others as not found")
+    public void updateAll_ReturnsResultPerId_whenSomeAnimesDoNotExist() {
+        StepVerifier.create(animeService.updateAll(List.of(AnimeCreator.createValidUpdateAnime(), Anime.builder().id(99).name("Error").build())))
+                .expectSubscription()
+                .assertNext(result -> {
+                    Assertions.assertEquals(1, result.getSucceeded());
+                    Assertions.assertEquals(1, result.getNotFound());
+                    Assertions.assertEquals(List.of(new BatchResult.Item(1, 200), new BatchResult.Item(99, 404)), result.getItems());
+                })
+                .verifyComplete();
+
+        BDDMockito.verify(animeRepository, Mockito.times(1)).incrementTableVersion();
+    }
+
+    @Test
+    @DisplayName("UpdateAll returns Mono error and updates nothing when a name is invalid")
+    public void updateAll_ReturnsMonoError_whenContainsInvalidName() {
+        StepVerifier.create(animeService.updateAll(List.of(AnimeCreator.createValidUpdateAnime(), Anime.builder().id(2).name("").build())))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        BDDMockito.verify(animeRepository, Mockito.never()).updateNames(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    @DisplayName("DeleteAll deletes the animes found and reports the others as not found")
+    public void deleteAll_ReturnsResultPerId_whenSomeAnimesDoNotExist() {
+        StepVerifier.create(animeService.deleteAll(BatchDelete.builder().ids(List.of(1, 99)).build()))
+                .expectSubscription()
+                .assertNext(result -> {
+                    Assertions.assertEquals(1, result.getSucceeded());
+                    Assertions.assertEquals(List.of(new BatchResult.Item(1, 200), new BatchResult.Item(99, 404)), result.getItems());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("DeleteAll returns Mono error when neither ids nor name prefix are sent")
+    public void deleteAll_ReturnsMonoError_whenBatchIsEmpty() {
+        StepVerifier.create(animeService.deleteAll(new BatchDelete()))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
     }
 
     @Test
@@ -0,0 +1,74 @@
+package academy.devdojo.springwebfluxessentials.service;
+
+import academy.devdojo.springwebfluxessentials.entity.Authorities;
+import academy.devdojo.springwebfluxessentials.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+class CachingAuthenticationManagerTest {
+
+    private final ReactiveAuthenticationManager delegate = Mockito.mock(ReactiveAuthenticationManager.class);
+
+    private final CachingAuthenticationManager cachingAuthenticationManager =
+            new CachingAuthenticationManager(delegate, 100, Duration.ofMinutes(1));
+
+    private final User user = User.builder().id(1).name("Thaci").username("thacigod").password("{noop}polivalente").authorities(Authorities.parse("ROLE_USER")).build();
+
+    @BeforeEach
+    public void setup() {
+        BDDMockito.when(delegate.authenticate(new UsernamePasswordAuthenticationToken("thacigod", "polivalente")))
+                .thenReturn(Mono.just(new UsernamePasswordAuthenticationToken(user, user.getPassword(), user.getAuthorities())));
+
+        BDDMockito.when(delegate.authenticate(new UsernamePasswordAuthenticationToken("thacigod", "wrong")))
+                .thenReturn(Mono.error(new BadCredentialsException("Invalid Credentials")));
+    }
+
+    @Test
+    @DisplayName("Authenticate checks the password only once when the same credentials are sent again")
+    public void authenticate_ChecksPasswordOnce_whenSameCredentials() {
+        StepVerifier.create(cachingAuthenticationManager.authenticate(new UsernamePasswordAuthenticationToken("thacigod", "polivalente"))
+                .then(Mono.defer(() -> cachingAuthenticationManager.authenticate(new UsernamePasswordAuthenticationToken("thacigod", "polivalente")))))
+                .expectSubscription()
+                .expectNextMatches(authentication -> authentication.isAuthenticated() && authentication.getPrincipal().equals(user))
+                .verifyComplete();
+
+        BDDMockito.verify(delegate, Mockito.times(1)).authenticate(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("Authenticate checks the password again when it is not the one verified before")
+    public void authenticate_ReturnsError_whenPasswordDiffers() {
+        StepVerifier.create(cachingAuthenticationManager.authenticate(new UsernamePasswordAuthenticationToken("thacigod", "polivalente"))
+                .then(Mono.defer(() -> cachingAuthenticationManager.authenticate(new UsernamePasswordAuthenticationToken("thacigod", "wrong")))))
+                .expectSubscription()
+                .expectError(BadCredentialsException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Invalidate forces the password to be checked again")
+    public void invalidate_ChecksPasswordAgain_whenUserChanged() {
+        StepVerifier.create(cachingAuthenticationManager.authenticate(new UsernamePasswordAuthenticationToken("thacigod", "polivalente")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        cachingAuthenticationManager.invalidate("thacigod");
+
+        StepVerifier.create(cachingAuthenticationManager.authenticate(new UsernamePasswordAuthenticationToken("thacigod", "polivalente")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        BDDMockito.verify(delegate, Mockito.times(2)).authenticate(ArgumentMatchers.any());
+    }
+}
@@ -0,0 +1,73 @@
+package academy.devdojo.springwebfluxessentials.service;
+
+import academy.devdojo.springwebfluxessentials.entity.Authorities;
+import academy.devdojo.springwebfluxessentials.entity.User;
+import academy.devdojo.springwebfluxessentials.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class UserDeletePostProcessorTest {
+
+    private final UserRepository target = Mockito.mock(UserRepository.class);
+
+    private final UserDetailsService userDetailsService = Mockito.mock(UserDetailsService.class);
+
+    private final CachingAuthenticationManager cachingAuthenticationManager = Mockito.mock(CachingAuthenticationManager.class);
+
+    private final User user = User.builder().id(2).name("Thaci").username("thacigod").password("{noop}polivalente").authorities(Authorities.parse("ROLE_USER")).build();
+
+    private UserRepository userRepository;
+
+    @BeforeEach
+    public void setup() {
+        BDDMockito.when(target.delete(ArgumentMatchers.any(User.class))).thenReturn(Mono.empty());
+        BDDMockito.when(target.deleteById(ArgumentMatchers.anyInt())).thenReturn(Mono.empty());
+
+        final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("userDetailsService", userDetailsService);
+        beanFactory.registerSingleton("cachingAuthenticationManager", cachingAuthenticationManager);
+        final UserDeletePostProcessor postProcessor = new UserDeletePostProcessor(
+                beanFactory.getBeanProvider(UserDetailsService.class), beanFactory.getBeanProvider(CachingAuthenticationManager.class));
+
+        // a proxy like the one of Spring Data
+        final ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.addInterface(UserRepository.class);
+        userRepository = (UserRepository) postProcessor.postProcessAfterInitialization(proxyFactory.getProxy(), "userRepository");
+    }
+
+    @Test
+    @DisplayName("Delete forgets the cached user and its verified credentials")
+    public void delete_EvictsUser_whenUserIsDeleted() {
+        StepVerifier.create(userRepository.delete(user))
+                .verifyComplete();
+
+        BDDMockito.verify(userDetailsService).evict("thacigod");
+        BDDMockito.verify(cachingAuthenticationManager).invalidate("thacigod");
+    }
+
+    @Test
+    @DisplayName("DeleteById forgets every cached user, the username is not known")
+    public void deleteById_EvictsEveryUser_whenUserIsDeleted() {
+        StepVerifier.create(userRepository.deleteById(2))
+                .verifyComplete();
+
+        BDDMockito.verify(userDetailsService).evictAll();
+        BDDMockito.verify(cachingAuthenticationManager).invalidateAll();
+    }
+
+    @Test
+    @DisplayName("Delete forgets nothing before the delete is done")
+    public void delete_EvictsNothing_whenNotSubscribed() {
+        userRepository.delete(user);
+
+        Mockito.verifyNoInteractions(userDetailsService, cachingAuthenticationManager);
+    }
+}